@@ -5,7 +5,9 @@
  */
 package src.commands;
 import src.shell.JShell;
+import src.shell.OutputSink;
 import src.filesys.*;
+import java.io.IOException;
 
 
 public class Cat extends Command {
@@ -29,32 +31,52 @@ public class Cat extends Command {
 	 * @return Output String that user will get
 	 */
 	public String runCommand(String[] commandArgs, JShell shell) {
+		return collectOutput(commandArgs, shell);
+	}
+	
+	/**
+	 * Run Cat command, writing the contents of each file to out
+	 * chunk by chunk, without joining them first
+	 * 
+	 * @param commandArgs
+	 *            Array that contains user input
+	 * @param shell
+	 *            JShellobject that user is running presently
+	 * @param out
+	 *            The destination of the contents and errors
+	 */
+	public void runCommand(String[] commandArgs, JShell shell, OutputSink out) {
 		
-		if(checkForRedirect(commandArgs)) {
-			   isRedirecting = true;
-			   commandArgs = getArgs(commandArgs);
-			}
+		commandArgs = takeRedirect(commandArgs);
 		
-		if (isValidArgs(commandArgs)){
+		// Without files, copy the output of the stage before
+		if (commandArgs.length == 1 && getInput() != null) {
+			OutputSink sink = outputSink(out, shell);
+			for (String chunk = getInput().read(); chunk != null; chunk = getInput().read()) {
+				sink.write(chunk);
+			}
+			if (sink != out) {
+				sink.end();
+			}
+		}
+		else if (isValidArgs(commandArgs)){
 			String [] fileList = getFileList(commandArgs);
+			OutputSink sink = outputSink(out, shell);
+			
 			//get file list
 			for (int i= 0 ; i< fileList.length - 1; i ++){
 				String file = fileList[i];
-				 concatenatesContents(file, shell);
+				 concatenatesContents(file, shell, sink, "\n");
 			}
 			//to eliminate only trailing spaces
-			concatenatesLastContents(fileList[fileList.length -1 ], shell);
-			
-			if(isRedirecting) {
-				   errors += processOutput(redirectArgs, shell, result);
-				   return errors;
-				}
-				// Send output to console
-			else return errors + result;
+			concatenatesContents(fileList[fileList.length -1 ], shell, sink, "");
 			
+			if (sink != out) {
+				sink.end();
+			}
 		}
 		else{
-			return invalidArgsMessage;
+			out.error(invalidArgsMessage);
 		}
 
 	}
@@ -67,22 +89,45 @@ public class Cat extends Command {
 		return fileList;
 	}
 	
-	protected void concatenatesContents(String file, JShell shell) {
+	/**
+	 * Write the contents of the file at path to out, followed by separator
+	 * 
+	 * @param file path of the file to read
+	 * @param shell JShell object that user is running presently
+	 * @param out the destination of the contents
+	 * @param separator the text to follow the contents or error with
+	 */
+	protected void concatenatesContents(String file, JShell shell, OutputSink out, String separator) {
 		try {
-			String fileContents = DirectoryNavigator.getFile(file, shell.getWorkDir(), true).toString();
-			result += fileContents + "\n";
+			writeContents(file, shell, out);
+			out.write(separator);
 		} catch (DirectoryException e) {
-			errors += String.format(notFoundMessage, file, "file or directory") + "\n";
+			out.error(String.format(notFoundMessage, file, "file or directory") + separator);
 		}
 	}
 	
-	
-	protected void concatenatesLastContents(String file, JShell shell) {
+	/**
+	 * Write the contents of the file at path to out chunk by chunk,
+	 * without joining the stored contents first
+	 * 
+	 * @param file path of the file to read
+	 * @param shell JShell object that user is running presently
+	 * @param out the destination of the contents
+	 * @throws DirectoryException if no file exists at path
+	 */
+	private void writeContents(String file, JShell shell, OutputSink out) throws DirectoryException {
+		ShellFile target = DirectoryNavigator.getFile(file, shell.getWorkDir(), true);
+		
+		// Directories have no contents of their own, show their listing
+		if (target.isDirectory()) {
+			out.write(target.toString());
+			return;
+		}
+		
 		try {
-			String fileContents = DirectoryNavigator.getFile(file, shell.getWorkDir(), true).toString();
-			result += fileContents;
-		} catch (DirectoryException e) {
-			errors += String.format(notFoundMessage, file, "file or directory");
+			target.getContents().appendTo(out);
+		} catch (IOException e) {
+			// A sink does not throw
 		}
 	}
 
@@ -116,6 +161,13 @@ public class Cat extends Command {
 		return true;
 	}
 
+	/**
+	 * Showing the contents of files never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	/**
 	 * Documentation for PresentWorkDir
 	 * 
@@ -127,7 +179,8 @@ public class Cat extends Command {
 		String[] helpDocs = { cmdName, // Name
 				"1", // Min Arguments
 				"infinity", // Max Arguments
-				"Display the contents of FILE in the shell.", // Functionality
+				"Display the contents of FILE in the shell. Without FILE, display " +
+				"the output of the command piped into cat.", // Functionality
 				"cat [filename 1] [filename 2] ... [filename n]" }; // Usage
 
 		return helpDocs;
@@ -29,10 +29,7 @@ public class ChangeDir extends Command {
 		Directory cwd = shell.getWorkDir();
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}
+		commandArgs = takeRedirect(commandArgs);
 		
 		// Check for correct number of arguments
 		if(!isValidArgs(commandArgs))
@@ -60,8 +57,8 @@ public class ChangeDir extends Command {
 		}
 		
 		// Send output to file
-		if(isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			errors += processOutput(shell, result);
 			return errors;
 		}
 		
@@ -82,6 +79,13 @@ public class ChangeDir extends Command {
 	}
 	
 	
+	/**
+	 * Changing the working directory of the shell never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	/**
 	 * Documentation for ChangeDir
 	 *
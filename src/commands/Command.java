@@ -1,11 +1,5 @@
 package src.commands;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.Arrays; 
-import java.util.ArrayList;
-import java.util.List;
-import java.lang.Math;
 import src.shell.*;
 
 public abstract class Command {
@@ -19,15 +13,25 @@ public abstract class Command {
 	public static String notFoundMessage = "Error: %s - No such %s exists";
 	public static String fileExistsMessage = "Error: A file with name %s already exists";
 	
+	// Most threads a "-P" option may ask for
+	protected static final int MAX_THREADS = 256;
+	
 	// Command Styling
 	protected static String helpSeparatorSmall = "\n------\n";
 	protected static String helpSeparatorLarge = "---------------------\n";
 	
 	// Redirect output
-	protected static String[] redirectArgs = {};
-	public static String result = ""; 
-	public static String errors = ""; 
-	static boolean isRedirecting = false;
+	// Each execution runs on a Command object of its own (see
+	// Executor.getCommand), so this state is never shared between shells
+	protected Redirect redirect;
+	protected String result = ""; 
+	protected String errors = ""; 
+	
+	// True once Executor has taken the redirect out of the arguments
+	private boolean redirectGiven;
+	
+	// Output of the stage before this one in a pipeline, or null
+	private Pipe input;
 	
 	// Constructor
 	public Command(String name) {
@@ -39,6 +43,96 @@ public abstract class Command {
 	protected abstract boolean isValidArgs(String[] cmdArgs);
 	public abstract String[] getHelp();
 	
+	/**
+	 * Let the command read the output of the stage before it
+	 * in a pipeline, as commands like cat and grep do without files
+	 * 
+	 * @param input The output of the stage before, or null
+	 */
+	public void setInput(Pipe input) {
+		this.input = input;
+	}
+	
+	/**
+	 * @return The output of the stage before this one in a pipeline,
+	 * or null if there is none
+	 */
+	protected Pipe getInput() {
+		return input;
+	}
+	
+	/**
+	 * Check whether the command only reads the file system, so that it
+	 * may run at the same time as other such commands on the same tree
+	 * 
+	 * @return True only if the command never changes files or directories
+	 */
+	public boolean readsOnly() {
+		return false;
+	}
+	
+	/**
+	 * Execute the command, writing its output to out. By default the
+	 * output is written all at once when the command is done; commands
+	 * with large output override this to write it as it is produced.
+	 * 
+	 * @param cmdArgs The arguments passed by user
+	 * @param shell JShell object for current session
+	 * @param out The destination of the output and errors
+	 */
+	public void runCommand(String[] cmdArgs, JShell shell, OutputSink out) {
+		out.write(runCommand(cmdArgs, shell));
+	}
+	
+	/**
+	 * Execute a command which writes its output to a sink, and collect
+	 * the output, for commands to implement runCommand(cmdArgs, shell) by
+	 * 
+	 * @param cmdArgs The arguments passed by user
+	 * @param shell JShell object for current session
+	 * @return The errors followed by the output of the command
+	 */
+	protected String collectOutput(String[] cmdArgs, JShell shell) {
+		StringSink out = new StringSink();
+		runCommand(cmdArgs, shell, out);
+		return out.toString();
+	}
+	
+	/**
+	 * Get the sink the output of this command is to be written to:
+	 * the file it is redirected to, if it is, or else out
+	 * 
+	 * @param out The destination of output which is not redirected
+	 * @param shell JShell object for current session
+	 * @return The destination of the output
+	 */
+	protected OutputSink outputSink(OutputSink out, JShell shell) {
+		if (redirect != null) {
+			return new RedirectSink(redirect, shell, out);
+		}
+		return out;
+	}
+	
+	/**
+	 * Get the number of threads requested by a "-P" option
+	 * E.g. "-P4" requests 4 threads, "-P" requests one thread per processor
+	 * 
+	 * @param option The "-P" option passed by the user
+	 * @return The number of threads, or 0 if the option does not ask for
+	 * 1 to MAX_THREADS threads
+	 */
+	protected static int getParallelism(String option) {
+		if (option.equals("-P")) {
+			return Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		}
+		try {
+			int threads = Integer.parseInt(option.substring("-P".length()));
+			return (threads >= 1 && threads <= MAX_THREADS) ? threads : 0;
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+	
 	/**
 	 * Remove the second argument in the command argument array
 	 * E.g. {"ls", "-R", "path"} returns {"ls", "path"}
@@ -73,56 +167,51 @@ public abstract class Command {
 	}
 	
 	/**
-	 * Redirect the output by echoing it to the output file
+	 * Write the output straight to the file it is redirected to
 	 * 
-	 * @param redirectArgs Arguments to pass to echo command
 	 * @param shell JShell object for current session
 	 * @param result The output to be redirected
 	 * @return Errors, if any, while redirecting output
 	 */
-	protected String processOutput(String[] redirectArgs, JShell shell, String result) {
-		
-		String output = "";
-		List<String> list = new ArrayList<String>();
-		
-		list.add("echo");
-		list.add(result);
-		for(String s: redirectArgs){
-			list.add(s);
-		}
-		
-		// Redirect output using "echo" command
-		String[] newArgs = new String[ list.size() ];
-		list.toArray(newArgs);	
-		Command cmd = Executor.getCommand("echo");
-		output = cmd.runCommand(newArgs, shell);
-		
-		// Return any errors while echoing
-		return output;
+	protected String processOutput(JShell shell, String result) {
+		StringSink errors = new StringSink();
+		OutputSink sink = new RedirectSink(redirect, shell, errors);
+		sink.write(result);
+		sink.end();
+		return errors.getErrors();
 	}
 	
 	
 	/**
-	 * Check if output for this command is to be redirected
+	 * Give the command the redirect of its output, which Executor has
+	 * already taken out of the arguments
+	 * 
+	 * @param redirect Where the output is redirected to, or null
+	 */
+	public void setRedirect(Redirect redirect) {
+		this.redirect = redirect;
+		redirectGiven = true;
+	}
+	
+	
+	/**
+	 * Start an execution of the command: initialize result and errors,
+	 * and take the redirect out of the arguments, unless Executor
+	 * already has
 	 * 
 	 * @param cmdArgs The arguments passed by user
-	 * @return True only if output is to be redirected
+	 * @return The arguments without the redirect
 	 */
-	protected static boolean checkForRedirect(String[] cmdArgs) {
+	protected String[] takeRedirect(String[] cmdArgs) {
 		
 		reset();
-		int count = 0;
-		Pattern p = Pattern.compile(">>|>");
-		Matcher m = p.matcher(Arrays.toString(cmdArgs));
-		
-		while(m.find()) {
-			count++;
+		if (!redirectGiven) {
+			redirect = Redirect.find(cmdArgs);
+			if (redirect != null) {
+				cmdArgs = redirect.getArgs();
+			}
 		}
-		
-		// Exactly one redirect symbol should be present
-		if (count != 1) 
-			return false;			
-		return true;
+		return cmdArgs;
 	}
 	
 	
@@ -130,37 +219,9 @@ public abstract class Command {
 	 * Initialize result and errors to default values
 	 * before every execution of command
 	 */
-	private static void reset() {
+	protected void reset() {
 		result = "";
 		errors = "";
-		isRedirecting = false;
-	}
-	
-	
-	/**
-	 * Get an array of new arguments by removing the redirect symbol
-	 * and its argument
-	 * 
-	 * @param cmdArgs The arguments passed by user
-	 * @return String[] containing command arguments
-	 */
-	protected static String[] getArgs(String[] cmdArgs) {
-		
-		int index0 = Arrays.asList(cmdArgs).indexOf(">");
-		int index1 = Arrays.asList(cmdArgs).indexOf(">>");
-		
-		int charIndex = Math.max(index0,index1);
-		String[] newArgs = {};
-		
-		try {
-			
-			// Create a new array of arguments that doesn't include
-			// redirect symbol and its argument
-			newArgs = Arrays.copyOfRange(cmdArgs, 0, charIndex);
-			redirectArgs = Arrays.copyOfRange(cmdArgs, charIndex, cmdArgs.length);
-		} catch( ArrayIndexOutOfBoundsException e ) {}
-		
-		return newArgs;
 	}
 	
 }
@@ -11,7 +11,7 @@ public class Copy extends Command {
 	
 	private String copyToFileMessage = "Error: Copy or move destination must be directory";
 	private String copyRootMessage = "Error: Cannot copy or move root directory";
-	private String copyToSelfMessage = "Error: Cannot copy or move file or folder to self";
+	protected String copyToSelfMessage = "Error: Cannot copy or move file or folder to self";
 	
 	/**
 	 * Default constructor
@@ -35,10 +35,7 @@ public class Copy extends Command {
 		String sourcePath = null;
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}
+		commandArgs = takeRedirect(commandArgs);
 		
 		//Ensure there are exactly 3 arguments
 		if(!isValidArgs(commandArgs))
@@ -235,7 +232,8 @@ public class Copy extends Command {
 	
 	/**
 	 * Create new ShellFile object that is
-	 * a clone of the provided file
+	 * a clone of the provided file. The text
+	 * of the contents is shared, not copied.
 	 *  
 	 * @param ShellFile original ShellFile object
 	 * to be cloned
@@ -244,24 +242,14 @@ public class Copy extends Command {
 	 */
 	public ShellFile cloneFile(ShellFile original)
 	{
-		ShellFile clone;
-		
-		if(original.isShortCut()){
-			ShellShortcut originalShortcut = (ShellShortcut)original;
-			clone = new ShellShortcut(originalShortcut.getName(), originalShortcut.getTargetPath(), originalShortcut.getShell());
-			}
-		else{
-			clone = new ShellFile();
-			clone.setName(original.getName());
-			clone.setContents(original.toString());
-		}
-
-		return clone;
+		return original.copy();
 	}
 	
 	/**
 	 * Create new ShellDirectory object that is
-	 * a clone of the provided object
+	 * a clone of the provided object. The clone
+	 * is lazy: the files in it are only copied
+	 * when either directory is first read or changed.
 	 *  
 	 * @param ShellDirectory original ShellDirectory
 	 *  object to be cloned
@@ -271,31 +259,7 @@ public class Copy extends Command {
 	 */
 	public ShellDirectory cloneDirectory (ShellDirectory original) throws DirectoryException
 	{
-		ShellDirectory clone = new ShellDirectory();
-		clone.setName(original.getName());
-		
-		String spacing = ShellDirectory.spacing;
-		String [] copy_list = original.toString().trim().split(spacing);
-
-        if(!copy_list[0].equals("")){  //If the folder contains items to copy
-
-            for (String item :copy_list) // Copy every item in the list of folder contents
-            {
-                if(!original.getFile(item).isDirectory()) //Current item to copy is a file
-                {
-                    ShellFile origFile = original.getFile(item); //Get file to copy
-                    ShellFile cloneFile = cloneFile(origFile); // Create new file with same content and name
-                    clone.addFile(cloneFile); //Add file to clone directory - Parent set automatically in ShellDirectory class
-                }
-                else // Current item to copy is a directory
-                {
-                    ShellDirectory subDir = (ShellDirectory)original.getFile(item); // Get directory to be copied
-                    ShellDirectory subClone = cloneDirectory(subDir); //Clone the directory
-                    clone.addDirectory(subClone); //Add cloned sub directory to its parent
-                }                         
-            }    
-        }        	
-		return clone; //Return cloned directory
+		return (ShellDirectory) original.copy();
 	}
 	
 	/**
@@ -341,8 +305,8 @@ public class Copy extends Command {
 	 */
 	protected String finish(JShell shell) {
 		// Send output to file
-		if(isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			errors += processOutput(shell, result);
 			return errors;
 		}
 		
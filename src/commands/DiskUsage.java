@@ -0,0 +1,154 @@
+package src.commands;
+
+import src.filesys.*;
+import src.shell.JShell;
+
+/**
+ * This class provides the implementation of the Disk Usage "du" command,
+ * which reports the memory used by the contents of each file
+ * @version 1.0
+ */
+public class DiskUsage extends Command {
+
+	private static final String COMPACT_ARG = "-c";
+	private static final String USAGE_LINE = "%d\t%s\n";
+	private static final String TOTAL = "total";
+
+	private long total;
+
+	/**
+	 * Default constructor
+	 */
+	public DiskUsage() {
+		super("du");
+	}
+
+	/**
+	 * Execute "du" command.
+	 * Print the estimated memory, in bytes, used by the contents of every
+	 * file under the given paths, followed by the total
+	 * @param commandArgs	The arguments passed by user
+	 * @shell JShell	 JShell object for current session
+	 * @return The result of this execution, error messages if any paths
+	 * do not exist
+	 */
+	public String runCommand(String[] commandArgs, JShell shell) {
+
+		// Check if output needs to be redirected
+		commandArgs = takeRedirect(commandArgs);
+
+		// Case 0: Invalid arguments
+		if (!isValidArgs(commandArgs)) {
+			return invalidArgsMessage;
+		}
+
+		Directory cwd = shell.getWorkDir();
+		boolean compact = isCompactArg(commandArgs);
+		if (compact) {
+			commandArgs = removeOptionArg(commandArgs);
+		}
+
+		StringBuilder output = new StringBuilder();
+		total = 0;
+
+		// Case 1: no path supplied, report the working directory
+		if (commandArgs.length == 1) {
+			usage((ShellFile) cwd, compact, output);
+		}
+
+		// Case 2: report each path supplied
+		int i;
+		for (i = 1; i < commandArgs.length; i++) {
+			try {
+				ShellFile target = DirectoryNavigator.getFile(commandArgs[i], cwd, true);
+				usage(target, compact, output);
+			} catch (DirectoryException e) {
+				errors += e.getMessage() + "\n";
+			}
+		}
+
+		output.append(String.format(USAGE_LINE, total, TOTAL));
+		result = output.substring(0, output.length() - 1);
+
+		// Send output to file
+		if (redirect != null) {
+			errors += processOutput(shell, result);
+			return errors;
+		}
+
+		// Send output to console
+		else 	return errors + result;
+	}
+
+	/**
+	 * Report the memory used by file, or by every file under it
+	 * if it is a directory. Shortcuts are not followed.
+	 *
+	 * @param file the file or directory to report
+	 * @param compact true if contents should be compacted first
+	 * @param output the report to append to
+	 */
+	private void usage(ShellFile file, boolean compact, StringBuilder output) {
+
+		// Case 0: directory, report its files depth first
+		if (file.isDirectory()) {
+			TreeWalker walker = new TreeWalker((Directory) file);
+			for (ShellFile child : walker) {
+				if (!child.isDirectory() && !child.isShortCut()) {
+					usage(child, walker.getPath(), compact, output);
+				}
+			}
+			return;
+		}
+
+		// Case 1: file
+		usage(file, file.getPath(), compact, output);
+	}
+
+	/**
+	 * Report the memory used by a single file
+	 *
+	 * @param file the file to report
+	 * @param path the path of file
+	 * @param compact true if contents should be compacted first
+	 * @param output the report to append to
+	 */
+	private void usage(ShellFile file, String path, boolean compact, StringBuilder output) {
+		FileContents contents = file.getContents();
+		if (compact) {
+			contents.compact();
+		}
+
+		long bytes = contents.memoryUsage();
+		total += bytes;
+		output.append(String.format(USAGE_LINE, bytes, path));
+	}
+
+	private static boolean isCompactArg(String[] commandArgs) {
+		return ((commandArgs.length > 1) &&
+				commandArgs[1].equals(COMPACT_ARG));
+	}
+
+	/**
+	 * Check that more than zero arguments have been passed
+	 * by the user
+	 *
+	 * @param cmdArgs Arguments passed by the user
+	 * @return True only if number of arguments is not zero
+	 */
+	protected boolean isValidArgs(String[] cmdArgs) {
+		return (cmdArgs.length >= 1);
+	}
+
+	public String[] getHelp() {
+		String[] helpDocs = {cmdName, // Name
+							"0", // Min Arguments
+							"Infinity", // Max Arguments
+							"Print the memory used by the contents of each file, and the total. " +
+							"With -c, compact the contents first.", // Functionality
+							"du [-c] [directory/file] ... [directory/file n]"}; // Usage
+
+		return helpDocs;
+	}
+
+}
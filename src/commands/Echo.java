@@ -5,10 +5,7 @@
 package src.commands;
 
 import src.shell.JShell;
-import src.filesys.*;
 
-import java.util.Arrays;
-import java.util.List;
 
 public class Echo extends Command {
 
@@ -29,90 +26,31 @@ public class Echo extends Command {
 	 */
 	public String runCommand(String[] commandArgs, JShell shell) {
 
-		// check the arguments is valid
-		if (isValidArgs(commandArgs)) {
-			// check the arguments is just plain string
-			if (isPlainString(commandArgs)) {
-				String userOut = new String();
-				// if it is a plain string return the string
-				for (int i = 1; i < commandArgs.length; i++) {
-					userOut += commandArgs[i] + ' ';
-				}
-
-				return userOut.trim();
-			}
-			List<String> cmdList = Arrays.asList(commandArgs);
-
-			String[] pathContents = getPathContentsArray(commandArgs);
-			String[] directoryFile = getDirectoryFileArray(pathContents[0],
-					shell);
-			ShellDirectory lastDir;
-			try {
-				lastDir = (ShellDirectory) DirectoryNavigator.getFile(
-						directoryFile[0], shell.getWorkDir(), true);
-			} catch (DirectoryException e) {
-				return String.format(notFoundMessage, pathContents[0], "file or directory");
-			}
-
-			// if it has a > (set sign), set the user given contents to a new
-			// file
-			if (cmdList.indexOf(">>") == -1) {
-				// make a new File to set the Contents
-				ShellFile setFile = new ShellFile(directoryFile[1]);
-				setFile.setContents(pathContents[1]);
-				// check that the file with the user given name can be added to
-				// the directory(lastDir)
-				boolean addFile = addFiletoDir(lastDir, setFile);
-				if (addFile == false) {
-
-					return String.format(fileExistsMessage, directoryFile[1]);
-				} else {
-					return "";
-				}
-			}
-
-			else {
-				// get the file to append the contents
-				ShellFile appendFile;
-				try {
-					appendFile = DirectoryNavigator.getFile(pathContents[0],
-							shell.getWorkDir(), true);
-				} catch (DirectoryException e) {
-					return String.format(notFoundMessage, pathContents[0], "file or directory");
-				}
+		commandArgs = takeRedirect(commandArgs);
 
-				appendFile.appendContents(pathContents[1]);
-				return "";
-			}
-		} else {
+		// check the arguments is valid
+		if (!isValidArgs(commandArgs)) {
 			return errormsg;
 		}
-	}
 
-	/**
-	 * method to check if file can be added to the given directory
-	 * 
-	 * @param dir
-	 *            Directory object that file may be added
-	 * @param File
-	 *            ShellFile Object that user wants to add
-	 * @return boolean object tells that the file can be added or not
-	 */
-	private boolean addFiletoDir(Directory dir, ShellFile file) {
-
-		try {
-			dir.addFile(file);
-			return true;
-
-		} catch (DirectoryException e) {
+		StringBuilder userOut = new StringBuilder();
+		for (int i = 1; i < commandArgs.length; i++) {
+			userOut.append(commandArgs[i]).append(' ');
+		}
+		String text = userOut.toString().trim();
 
-			return false;
+		// if it is not redirected return the string
+		if (redirect == null) {
+			return text;
 		}
 
+		// otherwise write it to the file, and return any errors
+		return processOutput(shell, text);
 	}
 
 	/**
-	 * Check that valid arguments have been passed by the user
+	 * Check that valid arguments have been passed by the user,
+	 * once the redirect has been taken out of them
 	 * 
 	 * @param cmdArgs
 	 *            Arguments passed by the user
@@ -120,31 +58,21 @@ public class Echo extends Command {
 	 */
 	protected boolean isValidArgs(String[] cmdArgs) {
 
-		// if user arguments doesn't contain > or >> return true
-		if (isPlainString(cmdArgs)) {
-
-			return true;
-		} else {
-			// get Content to append or set to a file and path that contains
-			// name of the file in the user input
-			// return false if user input contains invalid number of >. e.g.,
-			// echo [contents] >>> [path]
-			String[] pathContent = getPathContentsArray(cmdArgs);
-			if (pathContent[1].indexOf('>') != -1) {
+		// return false if a > is left in the contents, e.g.,
+		// echo [contents] >>> [path]
+		if (!isPlainString(cmdArgs)) {
 
-				errormsg = illegalArgsMessage;
-				return false;
-			}
-			// return false if user input doesn't contain file name e.g., echo
-			// [contents] >>
-			if (pathContent[0] == "") {
+			errormsg = illegalArgsMessage;
+			return false;
+		}
+		// return false if user input doesn't contain file name e.g., echo
+		// [contents] >>
+		if (redirect != null && redirect.getPath().length() == 0) {
 
-				errormsg = invalidArgsMessage;
-				return false;
-			} else {
-				return true;
-			}
+			errormsg = invalidArgsMessage;
+			return false;
 		}
+		return true;
 	}
 
 	/**
@@ -1,10 +1,24 @@
 package src.commands;
 import java.util.regex.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import src.filesys.*;
 import src.shell.JShell;
+import src.shell.OutputSink;
 
 public class Find extends Command {
 
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+	private static final String MAX_OPTION = "-max";
+	private static final String PARALLEL_REGEX = "-P([1-9][0-9]*)?";
+	static final String TYPE_OPTION = "-type";
+	static final String SIZE_OPTION = "-size";
+	static final String MAX_DEPTH_OPTION = "-maxdepth";
+	static final String MIN_DEPTH_OPTION = "-mindepth";
+	static final String NEWER_OPTION = "-newer";
+	static final String MINUTES_OPTION = "-mmin";
+
 	/**
 	 * Default constructor
 	 */
@@ -14,19 +28,37 @@ public class Find extends Command {
 	}
 	
 	public String runCommand(String[] commandArgs, JShell shell) {
+		return collectOutput(commandArgs, shell);
+	}
+	
+	/**
+	 * Execute "find", writing the paths that match to out as they are
+	 * found, rather than once the whole search is done
+	 * 
+	 * @param commandArgs The arguments passed by user
+	 * @param shell JShell object for current session
+	 * @param out The destination of the paths and errors
+	 */
+	public void runCommand(String[] commandArgs, JShell shell, OutputSink out) {
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs))
+		commandArgs = takeRedirect(commandArgs);
+		
+		//Read the options in front of the regex
+		FindQuery query = new FindQuery();
+		commandArgs = parseOptions(commandArgs, query);
+		if (commandArgs == null)
 		{
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
+			out.error(invalidArgsMessage);
+			return;
 		}
 		
 		//Ensure user input is valid
-		errors = checkCmdArgs(commandArgs,shell);
-		if(!errors.equals(""))
+		String error = checkCmdArgs(commandArgs,shell);
+		if(!error.equals(""))
 		{
-			return finish(shell);
+			out.error(error);
+			return;
 		}
 		
 		//Get absolute path of folder being searched
@@ -38,39 +70,113 @@ public class Find extends Command {
 		
 		//If path is invalid, catch and return error message
 		catch (DirectoryException e) {
-			errors = e.getMessage();
-			return finish(shell);
+			out.error(e.getMessage());
+			return;
 		}
 		
 		// commandArgs OK, proceed with find execution
+		query.pattern = Pattern.compile(commandArgs[1]);
+		OutputSink sink = outputSink(out, shell);
+		FindOutput output = new FindOutput(query.max, sink);
 		try 
 		{
-			// If search path ends with file
-			if (!DirectoryNavigator.getFile(absPath, shell.getWorkDir(), true).isDirectory()){
-				//Get file to be match against regex and process it
-				ShellFile current=null;
-				current = DirectoryNavigator.getFile(absPath, shell.getWorkDir(), true);				
-				processFile(commandArgs,absPath,current);
+			// Get the time to compare against for "-newer"
+			if (query.newerPath != null) {
+				query.newerThan = DirectoryNavigator.getFile(query.newerPath, shell.getWorkDir(), true)
+						.getLastModified();
+			}
+			
+			ShellFile current = DirectoryNavigator.getFile(absPath, shell.getWorkDir(), true);
+			
+			// If search path ends with file, match it against regex
+			if (!current.isDirectory()){
+				processFile(query,absPath,current,current,0,output);
+			}
+			
+			// Otherwise, search path ends with a folder, search it in parallel
+			else if (query.parallelism > 0){
+				query.scope = getScope((ShellDirectory) current, commandArgs[1]);
+				ForkJoinPool pool = new ForkJoinPool(query.parallelism);
+				try {
+					processFolder(query,absPath,current,(ShellDirectory) current,0,output,pool);
+				} finally {
+					pool.shutdown();
+				}
 			}
 			
 			// Otherwise, search path ends with a folder
 			else{
-				//Get folder to be searched	and process it
-				ShellDirectory current=null;
-				current = (ShellDirectory) DirectoryNavigator.getFile(absPath, shell.getWorkDir(), true);
-				processFolder(commandArgs,absPath,current,shell);
+				query.scope = getScope((ShellDirectory) current, commandArgs[1]);
+				processFolder(query,absPath,current,(ShellDirectory) current,0,output,null);
 			}
 		}
 		
 		// Catch and return error caused by calling getFile
 		catch (DirectoryException e)
 		{
-			errors = e.getMessage();
-			return finish(shell);
+			out.error(e.getMessage());
+		}
+		
+		// Write the paths not written yet, and finish the file the
+		// output was sent to
+		output.flush();
+		if (sink != out) {
+			sink.end();
+		}
+	}
+	
+	/**
+	 * Read the options in front of the regex:
+	 * "-max N" and "-P[threads]" control the search, while "-type",
+	 * "-size", "-maxdepth", "-mindepth", "-newer" and "-mmin" limit the
+	 * objects which match
+	 * 
+	 * @param cmdArgs Arguments passed by the user
+	 * @param query The query to set the options of
+	 * @return The arguments without the options, or null if an option
+	 * is invalid
+	 */
+	private String[] parseOptions(String[] cmdArgs, FindQuery query) {
+		
+		while (cmdArgs.length > 3 && cmdArgs[1].startsWith("-")) {
+			
+			// Stop after N matches
+			if (cmdArgs[1].equals(MAX_OPTION)) {
+				try {
+					query.max = Integer.parseInt(cmdArgs[2]);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+				if (query.max < 1) {
+					return null;
+				}
+				cmdArgs = removeOptionArg(cmdArgs);
+			}
+			
+			// Search subtrees in parallel
+			else if (cmdArgs[1].matches(PARALLEL_REGEX)) {
+				query.parallelism = getParallelism(cmdArgs[1]);
+				if (query.parallelism == 0) {
+					return null;
+				}
+			}
+			
+			// Options with a value, which must be followed by the regex
+			else if (cmdArgs.length > 4 && isPredicate(cmdArgs[1])) {
+				if (!query.setPredicate(cmdArgs[1], cmdArgs[2])) {
+					return null;
+				}
+				cmdArgs = removeOptionArg(cmdArgs);
+			}
+			
+			// Not an option, may be a regex starting with "-"
+			else {
+				break;
+			}
+			cmdArgs = removeOptionArg(cmdArgs);
 		}
 		
-		// Successfully executed find
-		return finish(shell);
+		return cmdArgs;
 	}
 	
 	private String checkCmdArgs(String[] cmdArgs, JShell shell){
@@ -121,92 +227,542 @@ public class Find extends Command {
 		return "";
 	}
 	
-	protected void processFile(String[] cmdArgs, String absPath, ShellFile current){
+	/**
+	 * @param option an argument passed by the user
+	 * @return true iff option is one of the options limiting matches
+	 */
+	private static boolean isPredicate(String option) {
+		return (option.equals(TYPE_OPTION) || option.equals(SIZE_OPTION) ||
+				option.equals(MAX_DEPTH_OPTION) || option.equals(MIN_DEPTH_OPTION) ||
+				option.equals(NEWER_OPTION) || option.equals(MINUTES_OPTION));
+	}
+	
+	/**
+	 * Match a file against the query, and add its path to the output
+	 * if it matches
+	 * 
+	 * @param query the regex and options of the search
+	 * @param absPath the path the file was reached by
+	 * @param item the object listed in the folder, which may be a shortcut
+	 * @param current the file to match, the target of item if it is a shortcut
+	 * @param depth the number of folders between the start of the search and item
+	 * @param output the matches found so far
+	 */
+	protected void processFile(FindQuery query, String absPath, ShellFile item, ShellFile current,
+			int depth, FindOutput output){
+		
+		//If item matches, append file's absolute path to result
+		if (!output.isFull() && query.matches(item, current, depth)){
+			output.addPath(absPath);
+		}
+	}
+	
+	/**
+	 * Match a folder and everything under it against the query, walking
+	 * the folder's objects directly. Shortcuts are followed, and their
+	 * targets are listed under the path of the shortcut, unless the walk
+	 * is already in the target, so loops are not walked. The walk stops
+	 * once the output holds as many matches as the query allows.
+	 * 
+	 * @param query the regex and options of the search
+	 * @param absPath the path the folder was reached by
+	 * @param entry the object listed for the folder, which may be a shortcut
+	 * @param current the folder to search, the target of entry if it is a shortcut
+	 * @param depth the number of folders between the start of the search and entry
+	 * @param output the matches found so far
+	 * @param pool the pool to search subfolders in in parallel, or null
+	 * to search sequentially
+	 */
+	protected void processFolder(FindQuery query, String absPath, ShellFile entry,
+			ShellDirectory current, int depth, FindOutput output, ForkJoinPool pool){
 		
-		//Get regex pattern and file name being matched
-		String regex = cmdArgs[1];
-		String name = current.getName();
+		//Match current directory against the query
+		processFile(query,absPath,entry,current,depth,output);
 		
-		//Compare file name against regex
-		Pattern p = Pattern.compile(regex);
-		Matcher m = p.matcher(name);
+		//Skip folders below the maximum depth, or which the name
+		//index shows have no matches in them
+		if (depth >= query.maxDepth || !query.mayContainMatch(current)) {
+			return;
+		}
 		
-		//If match exists, append file's absolute path to result
-		if (m.find()){
-			
-			//If first path in result, don't put add blank line
-			if (result.equals("")){
-				result += absPath;
-			} else{
-				result += "\n"+absPath;
-			}
+		TreeWalker walker = new TreeWalker(current, absPath);
+		FindVisitor visitor = new FindVisitor(query, output, depth);
+		if (pool != null) {
+			walker.walk(visitor, pool);
+		} else {
+			walker.walk(visitor);
 		}
 	}
 	
-	protected void processFolder(String[] cmdArgs, String absPath, ShellDirectory current, JShell shell){
+	/**
+	 * @param item a file, folder or shortcut in folder
+	 * @param folder the folder holding item
+	 * @return the target of item if it is a shortcut, otherwise item
+	 * @throws DirectoryException if item is a broken shortcut
+	 */
+	static ShellFile getTarget(ShellFile item, Directory folder) throws DirectoryException {
+		if (item.isShortCut()) {
+			return DirectoryNavigator.getFile(item.getName(), folder, true);
+		}
+		return item;
+	}
+	
+	/**
+	 * Use the name index of the tree, if it has one, to find the folders
+	 * which may contain a match for a regex anchored to the start of
+	 * names, such as "^abc"
+	 * 
+	 * @param start the folder the search starts from
+	 * @param regex the regex to be matched
+	 * @return the folders which contain a match or a shortcut, or null
+	 * if every folder must be searched
+	 */
+	private static Set<ShellFile> getScope(ShellDirectory start, String regex) {
 		
-		//Match name of current directory against regex
-		processFile(cmdArgs,absPath,(ShellFile)current);
+		NameIndex index = start.getNameIndex();
+		String prefix = getNamePrefix(regex);
+		if (index == null || prefix == null) {
+			return null;
+		}
 		
-		//Get list of directory contents
-		String[] contents = current.toStringArray();
+		// Shortcuts may lead anywhere, so folders holding them are searched
+		Set<ShellFile> scope = new HashSet<ShellFile>();
+		for (ShellFile match : index.withPrefix(prefix)) {
+			addParents(match, scope);
+		}
+		for (ShellFile shortcut : index.getShortcuts()) {
+			addParents(shortcut, scope);
+		}
 		
-		for(String item: contents)
-		{	
-			//Make absolute path for item being process
-			String new_path = absPath+item+"/";
-			
-			try 
-			{
-				//If item is a file
-				if(!DirectoryNavigator.getFile(new_path, current, true).isDirectory()) {
-					
-					//Get and process file
-					ShellFile sub_file = DirectoryNavigator.getFile(new_path, shell.getWorkDir(), true);
-					processFile(cmdArgs,new_path,sub_file);
-				}
-				
-				//If item is a folder
-				else { 
-					
-					//Get and process folder recursively
-					ShellDirectory sub_dir = (ShellDirectory) DirectoryNavigator.getFile(new_path, shell.getWorkDir(), true);
-					processFolder(cmdArgs,new_path,sub_dir,shell);
-				}
-			} 
-			
-			//Catch error caused by getFile and append to errors
-			catch (DirectoryException e)
-			{
-				errors += e.getMessage();
-			}
+		return scope;
+	}
+	
+	/**
+	 * Add the folders above file to scope
+	 * 
+	 * @param file the file or folder to add the parents of
+	 * @param scope the folders to add to
+	 */
+	private static void addParents(ShellFile file, Set<ShellFile> scope) {
+		Directory parent = file.getParent();
+		while (parent != null && scope.add((ShellFile) parent)) {
+			parent = parent.getParent();
 		}
 	}
-
-	protected String finish(JShell shell) {
-
-		if(isRedirecting) {
-			
-			// Send output of result to file
-			errors += processOutput(redirectArgs, shell, result);
-			
-			// Return errors for printing to console
-			return errors;
+	
+	/**
+	 * Get the text every name matching regex starts with
+	 * E.g. "^abc" returns "abc", "^ab?c" returns "a", "abc" returns null
+	 * 
+	 * @param regex the regex to be matched
+	 * @return the start of every matching name, or null if regex is not
+	 * anchored to the start of names by a plain prefix
+	 */
+	private static String getNamePrefix(String regex) {
+		
+		// Only regexes anchored to the start, without alternatives or flags
+		if (!regex.startsWith("^") || regex.indexOf('|') != -1 || regex.contains("(?")) {
+			return null;
 		}
 		
-		// Return errors and result for printing to console
-		else
-			return errors + result;
+		// Take the plain characters after the anchor
+		int end = 1;
+		while (end < regex.length() && METACHARACTERS.indexOf(regex.charAt(end)) == -1) {
+			end++;
+		}
+		
+		// A quantifier makes the character before it optional or repeated
+		if (end < regex.length() && "?*{+".indexOf(regex.charAt(end)) != -1) {
+			end--;
+		}
+		
+		return (end > 1) ? regex.substring(1, end) : null;
+	}
+
+	/**
+	 * Searching for files never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
 	}
 	
 	public String[] getHelp() {
 		String[] helpDocs = {cmdName, // Name
 				"3", // Min Arguments
-				"5", // Max Arguments
+				"Infinity", // Max Arguments
 				"Return paths of objects in PATH with name that matches REGEX. " +
 				"PATH may be relative to the current directory or may be full paths. " +
-				"find \"REGEX\" [PATH]"}; // Usage
+				"With -max, stop after N matches. With -P, search folders in parallel " +
+				"on the given number of threads, or one per processor. " +
+				"Only match objects of a type: f for files, d for folders, l for links (-type); " +
+				"files with [more than +|less than -] N characters, or kilobytes with k (-size); " +
+				"at most or at least N folders below PATH (-maxdepth, -mindepth); " +
+				"changed after the object at a path (-newer), or [more than +|less than -] " +
+				"N minutes ago (-mmin).", // Functionality
+				"find [-max N] [-P[threads]] [-type f|d|l] [-size [+|-]N[c|k]] [-maxdepth N] " +
+				"[-mindepth N] [-newer PATH] [-mmin [+|-]N] \"REGEX\" [PATH]"}; // Usage
 
 		return helpDocs;
 	}
-}
\ No newline at end of file
+}
+
+
+/**
+ * The regex and options of a search by find
+ */
+class FindQuery {
+	
+	Pattern pattern;
+	
+	// Folders which may contain a match, or null if any folder may
+	Set<ShellFile> scope;
+	
+	// Most matches to find, and number of threads to search with
+	int max = Integer.MAX_VALUE;
+	int parallelism = 0;
+	
+	// Type the objects must have, or 0 for any type
+	char type = 0;
+	
+	// Sizes, ages and depths the objects must have
+	private int sizeSign = 0;
+	private long size = -1;
+	private int minutesSign = 0;
+	private long minutes = -1;
+	int maxDepth = Integer.MAX_VALUE;
+	int minDepth = 0;
+	
+	private static final String TYPE_REGEX = "[fdl]";
+	private static final String NUMBER_REGEX = "[+-]?[0-9]+";
+	private static final String SIZE_REGEX = "[+-]?[0-9]+[ck]?";
+	
+	// Objects must be changed after newerThan, the time the object
+	// at newerPath was changed
+	String newerPath;
+	long newerThan = Long.MIN_VALUE;
+	private long now = System.currentTimeMillis();
+	
+	/**
+	 * Set one of the options limiting the objects which match
+	 * 
+	 * @param option the option, such as "-type"
+	 * @param value the value given for the option
+	 * @return false if value is not valid for option
+	 */
+	boolean setPredicate(String option, String value) {
+		
+		// Numbers too large for their type are not valid either
+		try {
+			return readPredicate(option, value);
+		} catch (NumberFormatException e) {
+			return false;
+		} catch (ArithmeticException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Read the value of one of the options limiting the objects which match
+	 * 
+	 * @param option the option, such as "-type"
+	 * @param value the value given for the option
+	 * @return false if value is not valid for option
+	 * @throws NumberFormatException if a number does not fit its type
+	 * @throws ArithmeticException if a size in kilobytes does not fit a long
+	 */
+	private boolean readPredicate(String option, String value) {
+		
+		// Case 0: type of object
+		if (option.equals(Find.TYPE_OPTION)) {
+			if (!value.matches(TYPE_REGEX))
+				return false;
+			type = value.charAt(0);
+			return true;
+		}
+		
+		// Case 1: path of an object to compare times with
+		if (option.equals(Find.NEWER_OPTION)) {
+			newerPath = value;
+			return true;
+		}
+		
+		// Case 2: size in characters or kilobytes
+		if (option.equals(Find.SIZE_OPTION)) {
+			if (!value.matches(SIZE_REGEX))
+				return false;
+			sizeSign = getSign(value);
+			int unit = 1;
+			if (value.endsWith("k"))
+				unit = 1024;
+			if (value.endsWith("c") || value.endsWith("k"))
+				value = value.substring(0, value.length() - 1);
+			size = Math.multiplyExact(Long.parseLong(value.substring(sizeSign == 0 ? 0 : 1)), (long) unit);
+			return true;
+		}
+		
+		// Case 3: numbers of minutes or folders
+		if (!value.matches(NUMBER_REGEX))
+			return false;
+		if (option.equals(Find.MINUTES_OPTION)) {
+			minutesSign = getSign(value);
+			minutes = Long.parseLong(value.substring(minutesSign == 0 ? 0 : 1));
+			return true;
+		}
+		if (value.startsWith("+") || value.startsWith("-"))
+			return false;
+		if (option.equals(Find.MAX_DEPTH_OPTION))
+			maxDepth = Integer.parseInt(value);
+		else
+			minDepth = Integer.parseInt(value);
+		return true;
+	}
+	
+	/**
+	 * Match an object found by the search against the query
+	 * 
+	 * @param item the object listed in its folder, which may be a shortcut
+	 * @param target the target of item if it is a shortcut, otherwise item
+	 * @param depth the number of folders between the start of the search and item
+	 * @return true iff the object matches every option and the regex
+	 */
+	boolean matches(ShellFile item, ShellFile target, int depth) {
+		
+		if (depth < minDepth || depth > maxDepth)
+			return false;
+		
+		// Links are the shortcuts themselves, not what they lead to
+		if (type != 0) {
+			char itemType = item.isShortCut() ? 'l' : (target.isDirectory() ? 'd' : 'f');
+			if (itemType != type)
+				return false;
+		}
+		
+		// Only files have a size of their own
+		if (size >= 0) {
+			long itemSize = (target.isDirectory() || item.isShortCut()) ? 0 :
+					target.getContents().length();
+			if (!compare(itemSize, sizeSign, size))
+				return false;
+		}
+		
+		// Minutes since the change, rounded up
+		if (minutes >= 0) {
+			long age = (now - target.getLastModified() + 59999) / 60000;
+			if (!compare(age, minutesSign, minutes))
+				return false;
+		}
+		
+		if (target.getLastModified() <= newerThan)
+			return false;
+		
+		// Compare name against regex last, it is the slowest test
+		return pattern.matcher(target.getName()).find();
+	}
+	
+	/**
+	 * @param value a number which may start with "+" or "-"
+	 * @return 1 for "+", -1 for "-", 0 otherwise
+	 */
+	private static int getSign(String value) {
+		if (value.startsWith("+"))
+			return 1;
+		if (value.startsWith("-"))
+			return -1;
+		return 0;
+	}
+	
+	/**
+	 * @param value the value to compare
+	 * @param sign 1 to test for more than limit, -1 for less than limit,
+	 * 0 for exactly limit
+	 * @param limit the value to compare against
+	 * @return true iff value passes the comparison
+	 */
+	private static boolean compare(long value, int sign, long limit) {
+		if (sign > 0)
+			return (value > limit);
+		if (sign < 0)
+			return (value < limit);
+		return (value == limit);
+	}
+	
+	/**
+	 * @param folder a folder to search
+	 * @return false if nothing under folder can match the query
+	 */
+	boolean mayContainMatch(ShellFile folder) {
+		return (scope == null || scope.contains(folder));
+	}
+	
+}
+
+
+/**
+ * The paths found by find, and the errors met on the way. No more than
+ * a maximum number of paths are kept.
+ * 
+ * The output of the whole search is written to a sink as it is found,
+ * in batches, while the output of a part of a parallel search is kept
+ * until it is added to the output before it.
+ */
+class FindOutput {
+	
+	private static final int BATCH_SIZE = 8192;
+	
+	StringBuilder paths = new StringBuilder();
+	StringBuilder errors = new StringBuilder();
+	private int count = 0;
+	private int max;
+	private OutputSink sink;
+	
+	/**
+	 * @param max the most paths to keep
+	 * @param sink the destination of the paths and errors, or null to
+	 * keep them
+	 */
+	FindOutput(int max, OutputSink sink) {
+		this.max = max;
+		this.sink = sink;
+	}
+	
+	boolean isFull() {
+		return (count >= max);
+	}
+	
+	void addPath(String path) {
+		if (count > 0) {
+			paths.append('\n');
+		}
+		paths.append(path);
+		count++;
+		if (paths.length() >= BATCH_SIZE) {
+			flush();
+		}
+	}
+	
+	void addError(String message) {
+		if (sink != null) {
+			sink.error(message);
+		} else {
+			errors.append(message);
+		}
+	}
+	
+	/**
+	 * Add the paths and errors of other after those of this output,
+	 * keeping only the first paths if there are too many
+	 * 
+	 * @param other the output to add
+	 */
+	void addAll(FindOutput other) {
+		if (other.errors.length() > 0) {
+			addError(other.errors.toString());
+		}
+		
+		// Case 0: all paths fit
+		if (count + other.count <= max) {
+			if (count > 0 && other.count > 0) {
+				paths.append('\n');
+			}
+			paths.append(other.paths);
+			count += other.count;
+			if (paths.length() >= BATCH_SIZE) {
+				flush();
+			}
+			return;
+		}
+		
+		// Case 1: add paths one by one until full
+		int start = 0;
+		while (!isFull()) {
+			int end = other.paths.indexOf("\n", start);
+			if (end == -1) {
+				end = other.paths.length();
+			}
+			addPath(other.paths.substring(start, end));
+			start = end + 1;
+		}
+	}
+	
+	/**
+	 * Write the paths kept so far to the sink, if there is one
+	 */
+	void flush() {
+		if (sink != null && paths.length() > 0) {
+			sink.write(paths.toString());
+			paths.setLength(0);
+		}
+	}
+	
+}
+
+
+/**
+ * Matches the objects visited in a walk of a folder against a query.
+ * When walked in parallel, each part of the walk keeps at most the
+ * maximum number of matches, and the output of the parts is joined in
+ * the order they are listed, so the result is the same as searching
+ * sequentially.
+ */
+class FindVisitor extends TreeVisitor {
+	
+	private FindQuery query;
+	private FindOutput output;
+	private int depth;
+	
+	/**
+	 * @param query the regex and options of the search
+	 * @param output the output to add matches to
+	 * @param depth the number of folders between the start of the
+	 * search and the start of the walk
+	 */
+	public FindVisitor(FindQuery query, FindOutput output, int depth) {
+		this.query = query;
+		this.output = output;
+		this.depth = depth;
+	}
+	
+	public boolean preVisit(ShellFile item, TreeWalker walker) {
+		int itemDepth = depth + walker.getDepth();
+		try {
+			ShellFile target = Find.getTarget(item, walker.getFolder());
+			
+			//The path is only made for matches, since it grows with depth
+			if (query.matches(item, target, itemDepth)) {
+				output.addPath(walker.getPath() + "/");
+			}
+			
+			//Walk folders, and the targets of shortcuts to folders,
+			//unless they are pruned like the folder searched. A shortcut
+			//to a folder the walk is already in is not followed, which
+			//would search that folder again without end.
+			if (target.isDirectory()) {
+				if (itemDepth >= query.maxDepth || !query.mayContainMatch((ShellDirectory) target)
+						|| (item != target && walker.isWalking((Directory) target))) {
+					return false;
+				}
+				walker.walkInto((Directory) target);
+			}
+			return true;
+		}
+		
+		//Catch error caused by a broken shortcut and append to errors
+		catch (DirectoryException e) {
+			output.addError(e.getMessage());
+			return false;
+		}
+	}
+	
+	public boolean isDone() {
+		return output.isFull();
+	}
+	
+	public TreeVisitor split() {
+		return new FindVisitor(query, new FindOutput(query.max, null), depth);
+	}
+	
+	public void merge(TreeVisitor part) {
+		output.addAll(((FindVisitor) part).output);
+	}
+	
+}
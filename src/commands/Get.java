@@ -31,10 +31,7 @@ public class Get extends Command {
 	public String runCommand(String[] commandArgs, JShell shell) {
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}
+		commandArgs = takeRedirect(commandArgs);
 		
 		if (isValidArgs(commandArgs)) {
 			try{
@@ -51,8 +48,8 @@ public class Get extends Command {
 		}
 		
 		// Send output to file
-		if(isRedirecting) {
-			errors = processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			errors = processOutput(shell, result);
 			return errors;
 		}
 		
@@ -4,17 +4,25 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
+import java.util.regex.PatternSyntaxException;
+import java.util.concurrent.ForkJoinPool;
 
 import src.filesys.*;
 import src.shell.JShell;
 import src.shell.Executor;
+import src.shell.OutputSink;
 
 public class Grep extends Command {
 
 	private static final String OPTION = "-R";
-	private static String regex = "";
+	private static final String PATTERN_OPTION = "-e";
+	private static final String PARALLEL_REGEX = "-P([1-9][0-9]*)?";
+	private static final int BATCH_SIZE = 8192;
+	private static final String INVALID_REGEX = "Error: %s - Invalid regular expression\n";
 	
 	/**
 	 * Default constructor
@@ -33,130 +41,217 @@ public class Grep extends Command {
 	 * error message otherwise
 	 */	
 	public String runCommand(String[] cmdArgs, JShell shell) {
+		return collectOutput(cmdArgs, shell);
+	}
+	
+	/**
+	 * Execute "grep" command, writing the lines that match to out as
+	 * each file is searched
+	 * 
+	 * @param cmdArgs	The arguments passed by user
+	 * @shell JShell	 JShell object for current session
+	 * @param out	The destination of the matching lines and errors
+	 */	
+	public void runCommand(String[] cmdArgs, JShell shell, OutputSink out) {
 		
 		Directory cwd = shell.getWorkDir();		
-		boolean recurse = checkOptions(cmdArgs);  // true if "-R" supplied	
+		boolean recurse = false;		// true if "-R" supplied
+		int parallelism = 0;			// number of threads if "-P" supplied
+		List<String> patterns = new ArrayList<String>();	// patterns supplied with "-e"
 		
-		/* Return new arguments with "-R" argument removed
+		/* Return new arguments with "-R", "-P" and "-e" arguments removed
 		 * from list of commands
 		 */		  
-		if (recurse) 
-			cmdArgs = removeOptionArg(cmdArgs);		
+		while (checkOptions(cmdArgs)) {
+			if (cmdArgs[1].equals(OPTION))
+				recurse = true;
+			else if (cmdArgs[1].equals(PATTERN_OPTION)) {
+				patterns.add(cmdArgs[2]);
+				cmdArgs = removeOptionArg(cmdArgs);
+			}
+			else {
+				parallelism = getParallelism(cmdArgs[1]);
+				if (parallelism == 0) {
+					out.error(invalidArgsMessage);
+					return;
+				}
+			}
+			cmdArgs = removeOptionArg(cmdArgs);
+		}
 		
 		
 		/* Check if output needs to be redirected
 		 * Return new arguments with redirect arguments removed
 		 * from list of commands 
 		 */
-		if(checkForRedirect(cmdArgs)) {
-			isRedirecting = true;
-			cmdArgs = getArgs(cmdArgs);
-		}
+		cmdArgs = takeRedirect(cmdArgs);
 
-		// Check for correct number of arguments
-		if (!isValidArgs(cmdArgs)) 
-			errors = invalidArgsMessage;
-		
 		String path;
 		ShellFile src;						// Starting directory point
 		int size = cmdArgs.length;
-		regex = cmdArgs[1];			// Regex to be matched
+		int first = 1;					// Index of the first file
+		
+		// Without "-e", the regex is the first argument
+		if (patterns.isEmpty()) {
+			
+			// Check for correct number of arguments, which may leave
+			// out the files if the input is piped from another command
+			if (!isValidArgs(cmdArgs) && !(cmdArgs.length == 2 && getInput() != null)) {
+				out.error(invalidArgsMessage);
+				return;
+			}
+			
+			patterns.add(cmdArgs[1]);	// Regex to be matched
+			first = 2;
+		}
+		
+		// Compile the patterns once, and reuse one matcher for every line
+		LineMatcher matcher;
+		try {
+			matcher = LineMatcher.compile(patterns);
+		} catch (PatternSyntaxException e) {
+			out.error(String.format(INVALID_REGEX, e.getPattern()));
+			return;
+		}
+		OutputSink sink = outputSink(out, shell);
+		StringBuilder output = new StringBuilder();
+		ForkJoinPool pool = null;
+		
+		// Without files, grep the output of the stage before,
+		// passing the lines that match on in batches
+		if(first == size && getInput() != null) {
+			for(String line = getInput().readLine(); line != null; line = getInput().readLine()) {
+				if(matcher.matches(line))
+					output.append(line).append('\n');
+				if(output.length() >= BATCH_SIZE)
+					GrepVisitor.flush(output, sink);
+			}
+			GrepVisitor.flush(output, sink);
+		}
+		
+		// Only grep the files the content index lists for the patterns
+		Set<ShellFile> candidates = shortlist(cwd, patterns);
 		
 		// Traverse list of files or directories to grep
-		for(int i=2; i<size; i++) {
+		try {
+			for(int i=first; i<size; i++) {
 			
-			path = cmdArgs[i];
-			try {				
-				src = DirectoryNavigator.getFile(path, cwd, true);
+				path = cmdArgs[i];
+				try {				
+					src = DirectoryNavigator.getFile(path, cwd, true);
 				
-				// Recursively traverse deeper into directory
-				if(recurse && src.isDirectory())
-					result += recurse((Directory) src);
+					// Traverse deeper into directory, in parallel
+					if(recurse && parallelism > 0 && src.isDirectory()) {
+						if(pool == null)
+							pool = new ForkJoinPool(parallelism);
+						new TreeWalker((Directory) src).walk(new GrepVisitor(matcher, candidates, output, sink), pool);
+					}
 				
-				// Non-recursive. Ignore directories.
-				else if(src.isDirectory())
-					continue;
+					// Traverse deeper into directory
+					else if(recurse && src.isDirectory())
+						new TreeWalker((Directory) src).walk(new GrepVisitor(matcher, candidates, output, sink));
 				
-				// Grep contents of file
-				else	result += matchRegex(src); 
+					// Non-recursive. Ignore directories.
+					else if(src.isDirectory())
+						continue;
+				
+					// Grep contents of file
+					else {
+						matchRegex(src, matcher, candidates, output);
+						GrepVisitor.flush(output, sink);
+					}
 					
-			} catch (DirectoryException e) {
-				errors += e.getMessage() + "\n";
-			}			
-		}
-		
-		// Send output to file
-		if(isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
-			return errors;
+				} catch (DirectoryException e) {
+					out.error(e.getMessage() + "\n");
+				}			
+			}
+		} finally {
+			if(pool != null)
+				pool.shutdown();
 		}
 		
-		// Send output to console
-		else 	return errors + result;
+		// Finish the file the output was sent to
+		if(sink != out)
+			sink.end();
 		
 	}
 	
 	
 	/**
-	 * Recursively traverse directories and grep contained files
+	 * Grep contents of file with user supplied regex
+	 * The file is read one line at a time, and matching lines are
+	 * written to output as they are found
 	 * 
-	 * @param dir Directory to inspect for files to be grepped
-	 * @return String containing all lines in all files matching regex
+	 * @param file File to be grepped
+	 * @param matcher Matcher for the patterns, reused for every line
+	 * @param candidates Files which may match, or null for all files
+	 * @param output Destination of lines that matched regex
 	 */
-	private String recurse(Directory dir) {
+	static void matchRegex(ShellFile file, LineMatcher matcher, Set<ShellFile> candidates,
+			StringBuilder output) {
 		
-		String output = "";  // contains final result of all matched lines
+		// The index shows the file cannot match
+		if(candidates != null && !candidates.contains(file))
+			return;
 		
-		// Recursively traverse deeper
-		for (ShellFile inspect : ((ShellDirectory) dir)) {
-			
-			// For directories, traverse deeper
-			if(inspect.getClass() == ShellDirectory.class)
-				output += recurse((Directory) inspect);
-			
-			// Grep the file with regex
-			else
-				output += matchRegex(inspect);
-		}
+		Iterator<String> input = file.getContents().lineIterator();	// Read file line-by-line	
+		String prefix = null;
 		
-		return output;
+		// For each newline in the file
+		while(input.hasNext()) {
+			String line = input.next();
+			if(matcher.matches(line)) {
+				
+				// Only build the path once a line has matched
+				if(prefix == null)
+					prefix = file.getPath() + ": ";
+				
+				// Add the line to result
+				output.append(prefix).append(line).append('\n');
+			}
+		}
 	}
 	
-	
+
 	/**
-	 * Grep contents of file with user supplied regex
+	 * Use the content index of the tree, if it has one, to find the
+	 * files which may contain a match for any of the patterns
 	 * 
-	 * @param file File to be grepped
-	 * @return String containing lines that matched regex
+	 * @param cwd The current working directory
+	 * @param patterns The patterns to be matched
+	 * @return The files which may match, or null if every file may match
 	 */
-	private String matchRegex(ShellFile file) {
+	private static Set<ShellFile> shortlist(Directory cwd, List<String> patterns) {
 		
-		String output = "";
-		String[] input = file.toString().split("\\n");	// Split file line-by-line	
-		Pattern p = Pattern.compile(regex);	
+		ContentIndex index = ((ShellDirectory) cwd).getContentIndex();
+		if(index == null)
+			return null;
 		
-		// For each newline in the file
-		for(int i=0; i<input.length; i++) {
-			Matcher m = p.matcher(input[i]);
-			if(m.find())
-				// Add the line to result
-				output += file.getPath() + ": " + input[i] + "\n";
+		// A line matches if it matches any pattern
+		Set<ShellFile> candidates = new HashSet<ShellFile>();
+		for(String pattern : patterns) {
+			String literal = LineMatcher.requiredLiteral(pattern);
+			Set<ShellFile> files = (literal == null) ? null : index.candidates(literal);
+			if(files == null)
+				return null;
+			candidates.addAll(files);
 		}
-	
-		// Final result containing all lines that matched regex
-		return output;
+		
+		return candidates;
 	}
 	
-
+	
 	/**
-	 * Check if "-R" recursive option is supplied
+	 * Check if the "-R" recursive option, the "-P" parallel option or
+	 * a "-e" pattern is supplied in front of the regex
 	 * 
 	 * @param cmdArgs Arguments passed by the user
-	 * @return True only if recursive option is supplied
+	 * @return True only if an option is supplied
 	 */
 	private boolean checkOptions(String[] cmdArgs) {
 		return ((cmdArgs.length >= 3) &&
-				cmdArgs[1].equals(OPTION));
+				(cmdArgs[1].equals(OPTION) || cmdArgs[1].equals(PATTERN_OPTION) ||
+				cmdArgs[1].matches(PARALLEL_REGEX)));
 	}
 	
 	
@@ -172,6 +267,13 @@ public class Grep extends Command {
 	}
 	
 	
+	/**
+	 * Searching the contents of files never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	/**
 	 * Documentation for Remove
 	 *
@@ -181,10 +283,71 @@ public class Grep extends Command {
 		String[] helpDocs = {cmdName, // Name
 				"1", // Min Arguments
 				"Infinity", // Max Arguments
-				"Recursively find files that contain regex", // Functionality
-				"grep [-R] [name 2] ... [name n]"}; // Usage
+				"Recursively find files that contain regex. Without files, find " +
+				"the lines that match in the output of the command piped into grep.", // Functionality
+				"grep [-R] [-P[threads]] [regex | -e pattern 1 ... -e pattern n] [name 2] ... [name n]"}; // Usage
 
 		return helpDocs;
 	}
 	
-}
\ No newline at end of file
+}
+
+
+/**
+ * Greps every file visited in a walk of a directory. When walked in
+ * parallel, each part of the walk greps with its own copy of the matcher
+ * into its own output, and the output of the parts is joined in the order
+ * they are listed, so the result is the same as grepping sequentially.
+ * 
+ * The visitor the walk started with writes its output to the sink after
+ * each file, or each part merged, so only the output of parts not yet
+ * merged is held in memory.
+ */
+class GrepVisitor extends TreeVisitor {
+	
+	private LineMatcher matcher;
+	private Set<ShellFile> candidates;
+	private StringBuilder output;
+	private OutputSink sink;
+	
+	public GrepVisitor(LineMatcher matcher, Set<ShellFile> candidates, StringBuilder output,
+			OutputSink sink) {
+		this.matcher = matcher;
+		this.candidates = candidates;
+		this.output = output;
+		this.sink = sink;
+	}
+	
+	public boolean preVisit(ShellFile file, TreeWalker walker) {
+		if(file.getClass() != ShellDirectory.class) {
+			Grep.matchRegex(file, matcher, candidates, output);
+			flush(output, sink);
+		}
+		return true;
+	}
+	
+	public TreeVisitor split() {
+		
+		// Matchers may not be thread safe, each part needs its own
+		return new GrepVisitor(matcher.copy(), candidates, new StringBuilder(), null);
+	}
+	
+	public void merge(TreeVisitor part) {
+		output.append(((GrepVisitor) part).output);
+		flush(output, sink);
+	}
+	
+	/**
+	 * Write the output gathered so far to sink, if there is one
+	 * 
+	 * @param output the output gathered
+	 * @param sink the destination of the output, or null to keep it
+	 */
+	static void flush(StringBuilder output, OutputSink sink) {
+		if(sink != null && output.length() > 0) {
+			sink.write(output.toString());
+			output.setLength(0);
+		}
+	}
+	
+}
@@ -0,0 +1,152 @@
+package src.commands;
+
+import src.shell.JShell;
+import src.filesys.*;
+
+/**
+ * This class provides the implementation of the "index" command, which
+ * manages the index of file contents that grep uses to skip files, and
+ * the index of file names that find uses to skip directories
+ * @version 1.0
+ */
+public class Index extends Command {
+
+	private static final String ON = "on";
+	private static final String OFF = "off";
+	private static final String REBUILD = "rebuild";
+	private static final String STATUS = "status";
+	private static final String NAMES_ARG = "-n";
+
+	private static final String NOT_INDEXED = "Error: The file system is not indexed";
+	private static final String STATUS_ON = "Index on: %d files, %d trigrams";
+	private static final String STATUS_OFF = "Index off";
+	private static final String NAMES_ON = "Name index on: %d names";
+	private static final String NAMES_OFF = "Name index off";
+
+	public Index() {
+		super("index");
+	}
+
+	/**
+	 * Execute "index" command.
+	 * Turn the content index of the file system on or off, rebuild it
+	 * from the files, or show its size. With "-n", do the same for the
+	 * name index instead.
+	 * @param cmdArgs	The arguments passed by user
+	 * @shell JShell	 JShell object for current session
+	 * @return The status of the index, or an error message
+	 */
+	public String runCommand(String[] cmdArgs, JShell shell) {
+
+		// Check if output needs to be redirected
+		cmdArgs = takeRedirect(cmdArgs);
+
+		boolean names = (cmdArgs.length > 1 && cmdArgs[1].equals(NAMES_ARG));
+		if (names) {
+			cmdArgs = removeOptionArg(cmdArgs);
+		}
+		
+		// Case 0: Invalid arguments
+		if (!isValidArgs(cmdArgs)) {
+			return invalidArgsMessage;
+		}
+
+		// Case 1: unknown action
+		String action = (cmdArgs.length == 1) ? STATUS : cmdArgs[1];
+		if (!action.equals(ON) && !action.equals(OFF) && !action.equals(REBUILD) && !action.equals(STATUS)) {
+			return invalidArgsMessage;
+		}
+
+		// Case 2: rebuilding an index which does not exist
+		ShellDirectory root = (ShellDirectory) shell.getWorkDir().getRoot();
+		boolean indexed = names ? (root.getNameIndex() != null) : (root.getContentIndex() != null);
+		if (action.equals(REBUILD) && !indexed) {
+			return NOT_INDEXED;
+		}
+
+		result = names ? runNameIndex(action, root) : runContentIndex(action, root);
+
+		// Send output to file
+		if (redirect != null) {
+			errors += processOutput(shell, result);
+			return errors;
+		}
+
+		// Send output to console
+		else 	return result;
+	}
+
+	/**
+	 * Apply action to the content index of the tree with root as its root
+	 * 
+	 * @param action one of "on", "off", "rebuild" and "status"
+	 * @param root the root of the tree
+	 * @return the status of the content index
+	 */
+	private static String runContentIndex(String action, ShellDirectory root) {
+
+		// Case 0: build a new index from the files
+		if (action.equals(ON) || action.equals(REBUILD)) {
+			root.setContentIndex(new ContentIndex());
+		}
+
+		// Case 1: stop indexing
+		else if (action.equals(OFF)) {
+			root.setContentIndex(null);
+		}
+
+		return status(root.getContentIndex());
+	}
+
+	/**
+	 * Apply action to the name index of the tree with root as its root
+	 * 
+	 * @param action one of "on", "off", "rebuild" and "status"
+	 * @param root the root of the tree
+	 * @return the status of the name index
+	 */
+	private static String runNameIndex(String action, ShellDirectory root) {
+
+		// Case 0: build a new index from the files
+		if (action.equals(ON) || action.equals(REBUILD)) {
+			root.setNameIndex(new NameIndex());
+		}
+
+		// Case 1: stop indexing
+		else if (action.equals(OFF)) {
+			root.setNameIndex(null);
+		}
+
+		NameIndex index = root.getNameIndex();
+		return (index == null) ? NAMES_OFF : String.format(NAMES_ON, index.size());
+	}
+
+	/**
+	 * @param index the content index, or null
+	 * @return a description of the size of index
+	 */
+	private static String status(ContentIndex index) {
+		if (index == null) {
+			return STATUS_OFF;
+		}
+		return String.format(STATUS_ON, index.fileCount(), index.gramCount());
+	}
+
+	protected boolean isValidArgs(String[] cmdArgs) {
+		return (cmdArgs.length <= 2);
+	}
+
+	public String[] getHelp() {
+		String[] helpDocs = {cmdName, // Name
+							"0", // Min Arguments
+							"2", // Max Arguments
+							"Index the contents of all files so that grep can skip files " +
+							"which cannot match. Turn the index on or off, rebuild it, " +
+							"or show its size. With -n, index the names of all files " +
+							"instead, so that find can skip directories.", // Functionality
+							"index [-n] [on | off | rebuild | status]"}; // Usage
+
+		return helpDocs;
+	}
+
+}
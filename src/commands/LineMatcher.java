@@ -0,0 +1,390 @@
+package src.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides whether a line contains a match for one or more patterns.
+ * Patterns without regex metacharacters are searched for as plain text,
+ * several of them at once with an Aho-Corasick automaton, and only the
+ * other patterns go through java.util.regex.
+ */
+abstract class LineMatcher {
+
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+	/**
+	 * @param line the line to search
+	 * @return true iff line contains a match for any of the patterns
+	 */
+	public abstract boolean matches(String line);
+
+	/**
+	 * Get a matcher for the same patterns which can be used by another
+	 * thread at the same time as this one
+	 *
+	 * @return a matcher safe to use alongside this one
+	 */
+	public abstract LineMatcher copy();
+
+	/**
+	 * Create the fastest matcher for a list of patterns
+	 *
+	 * @param patterns the patterns to match, at least one
+	 * @return a matcher for lines containing any of the patterns
+	 * @throws PatternSyntaxException if a pattern is an invalid regex
+	 */
+	public static LineMatcher compile(List<String> patterns) throws PatternSyntaxException {
+
+		// Case 0: only literal patterns
+		if (isLiteral(patterns)) {
+			if (patterns.size() == 1) {
+				return new LiteralLineMatcher(patterns.get(0));
+			}
+			return new MultiLiteralLineMatcher(patterns);
+		}
+
+		// Case 1: at least one regex
+		Pattern[] compiled = new Pattern[patterns.size()];
+		for (int i = 0; i < compiled.length; i++) {
+			compiled[i] = Pattern.compile(patterns.get(i));
+		}
+		return new RegexLineMatcher(compiled);
+	}
+
+	/**
+	 * Find a piece of text that is part of every match of a regex, so
+	 * that lines without it need not be matched. Only text outside of
+	 * groups, classes and escapes is considered, and characters made
+	 * optional by a quantifier are left out.
+	 *
+	 * @param pattern the regex
+	 * @return the longest such text found, or null if the regex has
+	 * alternatives or flags which make finding one unsafe
+	 */
+	public static String requiredLiteral(String pattern) {
+
+		// Case 0: alternatives, inline flags or quoting, give up
+		if (pattern.indexOf('|') != -1 || pattern.contains("(?") || pattern.contains("\\Q")) {
+			return null;
+		}
+
+		// Case 1: find the longest run of plain characters
+		String longest = "";
+		StringBuilder run = new StringBuilder();
+		int size = pattern.length();
+		int i = 0;
+		while (i < size) {
+			char next = pattern.charAt(i);
+
+			// Plain character
+			if (METACHARACTERS.indexOf(next) == -1) {
+				run.append(next);
+				i++;
+				continue;
+			}
+
+			// A quantifier which allows zero repetitions removes the
+			// character before it from the run
+			if ((next == '?' || next == '*' || next == '{') && run.length() > 0) {
+				run.setLength(run.length() - 1);
+			}
+			if (run.length() > longest.length()) {
+				longest = run.toString();
+			}
+			run.setLength(0);
+
+			// Skip escapes, character classes, groups and repetition counts
+			if (next == '\\') {
+				i += 2;
+			} else if (next == '[') {
+				i = skipClass(pattern, i);
+			} else if (next == '(') {
+				i = skipGroup(pattern, i);
+			} else if (next == '{') {
+				int end = pattern.indexOf('}', i);
+				i = (end == -1) ? size : end + 1;
+			} else {
+				i++;
+			}
+		}
+		if (run.length() > longest.length()) {
+			longest = run.toString();
+		}
+
+		return longest;
+	}
+
+	/**
+	 * @param pattern the regex
+	 * @param start the index of the '[' opening a character class
+	 * @return the index after the ']' closing the class
+	 */
+	private static int skipClass(String pattern, int start) {
+		int i = start + 1;
+
+		// A ']' right after the '[' or "[^" is part of the class
+		if (i < pattern.length() && pattern.charAt(i) == '^') {
+			i++;
+		}
+		if (i < pattern.length() && pattern.charAt(i) == ']') {
+			i++;
+		}
+
+		int depth = 1;
+		while (i < pattern.length() && depth > 0) {
+			char next = pattern.charAt(i);
+			if (next == '\\') {
+				i++;
+			} else if (next == '[') {
+				depth++;
+			} else if (next == ']') {
+				depth--;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @param pattern the regex
+	 * @param start the index of the '(' opening a group
+	 * @return the index after the ')' closing the group
+	 */
+	private static int skipGroup(String pattern, int start) {
+		int depth = 0;
+		int i = start;
+		do {
+			char next = pattern.charAt(i);
+			if (next == '\\') {
+				i++;
+			} else if (next == '[') {
+				i = skipClass(pattern, i) - 1;
+			} else if (next == '(') {
+				depth++;
+			} else if (next == ')') {
+				depth--;
+			}
+			i++;
+		} while (i < pattern.length() && depth > 0);
+		return i;
+	}
+
+	/**
+	 * @param patterns the patterns to check
+	 * @return true iff none of the patterns contain a regex metacharacter
+	 */
+	private static boolean isLiteral(List<String> patterns) {
+		for (String pattern : patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				if (METACHARACTERS.indexOf(pattern.charAt(i)) != -1) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
+
+/**
+ * Matches lines containing a plain string
+ */
+class LiteralLineMatcher extends LineMatcher {
+
+	private String literal;
+
+	public LiteralLineMatcher(String literal) {
+		this.literal = literal;
+	}
+
+	public boolean matches(String line) {
+		return (line.indexOf(literal) != -1);
+	}
+
+	public LineMatcher copy() {
+		return this;
+	}
+
+}
+
+/**
+ * Matches lines containing any of several plain strings, in a single
+ * pass over the line using an Aho-Corasick automaton
+ */
+class MultiLiteralLineMatcher extends LineMatcher {
+
+	// For each state, the sorted characters it has transitions on,
+	// and the states those transitions lead to
+	private char[][] labels;
+	private int[][] targets;
+
+	// For each state, the state of its longest proper suffix
+	private int[] failure;
+
+	// For each state, true iff a pattern ends there or at a suffix of it
+	private boolean[] accepting;
+
+	public MultiLiteralLineMatcher(List<String> literals) {
+		build(literals);
+	}
+
+	public boolean matches(String line) {
+
+		// The empty pattern matches every line
+		if (accepting[0]) {
+			return true;
+		}
+
+		int state = 0;
+		int size = line.length();
+		for (int i = 0; i < size; i++) {
+			char next = line.charAt(i);
+
+			// Fall back to shorter suffixes until one can be extended
+			int target = transition(state, next);
+			while (target == -1 && state != 0) {
+				state = failure[state];
+				target = transition(state, next);
+			}
+			state = (target == -1) ? 0 : target;
+
+			if (accepting[state]) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public LineMatcher copy() {
+		return this;
+	}
+
+	/**
+	 * @param state the state to move from
+	 * @param next the next character of the line
+	 * @return the state reached, or -1 if state has no transition on next
+	 */
+	private int transition(int state, char next) {
+		int index = Arrays.binarySearch(labels[state], next);
+		return (index < 0) ? -1 : targets[state][index];
+	}
+
+	/**
+	 * Build the trie of the literals, then the failure links
+	 * breadth first
+	 *
+	 * @param literals the strings to search for
+	 */
+	private void build(List<String> literals) {
+
+		// Build the trie
+		List<Map<Character, Integer>> trie = new ArrayList<Map<Character, Integer>>();
+		List<Boolean> ends = new ArrayList<Boolean>();
+		trie.add(new HashMap<Character, Integer>());
+		ends.add(false);
+		for (String literal : literals) {
+			int state = 0;
+			for (int i = 0; i < literal.length(); i++) {
+				Integer next = trie.get(state).get(literal.charAt(i));
+				if (next == null) {
+					next = trie.size();
+					trie.get(state).put(literal.charAt(i), next);
+					trie.add(new HashMap<Character, Integer>());
+					ends.add(false);
+				}
+				state = next;
+			}
+			ends.set(state, true);
+		}
+
+		// Store the transitions as sorted arrays
+		int size = trie.size();
+		labels = new char[size][];
+		targets = new int[size][];
+		failure = new int[size];
+		accepting = new boolean[size];
+		for (int state = 0; state < size; state++) {
+			Map<Character, Integer> edges = trie.get(state);
+			labels[state] = new char[edges.size()];
+			targets[state] = new int[edges.size()];
+			int i = 0;
+			for (Character label : edges.keySet()) {
+				labels[state][i++] = label;
+			}
+			Arrays.sort(labels[state]);
+			for (i = 0; i < labels[state].length; i++) {
+				targets[state][i] = edges.get(labels[state][i]);
+			}
+			accepting[state] = ends.get(state);
+		}
+
+		// Link each state to its longest proper suffix, parents first
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		queue.add(0);
+		while (!queue.isEmpty()) {
+			int state = queue.removeFirst();
+			for (int i = 0; i < labels[state].length; i++) {
+				int child = targets[state][i];
+				char label = labels[state][i];
+
+				if (state == 0) {
+					failure[child] = 0;
+				} else {
+					int suffix = failure[state];
+					int target = transition(suffix, label);
+					while (target == -1 && suffix != 0) {
+						suffix = failure[suffix];
+						target = transition(suffix, label);
+					}
+					failure[child] = (target == -1) ? 0 : target;
+				}
+
+				accepting[child] = accepting[child] || accepting[failure[child]];
+				queue.add(child);
+			}
+		}
+	}
+
+}
+
+/**
+ * Matches lines containing a match for any of several regexes
+ */
+class RegexLineMatcher extends LineMatcher {
+
+	private Pattern[] patterns;
+	private Matcher[] matchers;
+
+	public RegexLineMatcher(Pattern[] patterns) {
+		this.patterns = patterns;
+
+		// One reusable matcher per pattern
+		matchers = new Matcher[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			matchers[i] = patterns[i].matcher("");
+		}
+	}
+
+	public boolean matches(String line) {
+		for (Matcher matcher : matchers) {
+			if (matcher.reset(line).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public LineMatcher copy() {
+		return new RegexLineMatcher(patterns);
+	}
+
+}
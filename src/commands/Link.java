@@ -26,10 +26,7 @@ public class Link extends Command {
 	@Override
 	public String runCommand(String[] cmdArgs, JShell shell) {
 		
-		if(checkForRedirect(cmdArgs)) {
-			   isRedirecting = true;
-			   cmdArgs = getArgs(cmdArgs);
-			}
+		cmdArgs = takeRedirect(cmdArgs);
 		
 		if (isValidArgs(cmdArgs)){
 		String targetPath = getTargetPath(cmdArgs);// get_target
@@ -50,8 +47,8 @@ public class Link extends Command {
 		}
 		
 		
-		if(isRedirecting) {
-			   errors += processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			   errors += processOutput(shell, result);
 			   return errors;
 			}
 			// Send output to console
@@ -2,8 +2,8 @@ package src.commands;
 
 import src.filesys.*;
 import src.shell.JShell;
+import src.shell.OutputSink;
 
-import java.util.Iterator;
 import java.util.Arrays;
 
 /**
@@ -31,20 +31,30 @@ public class ListFiles extends Command {
 	 * error message otherwise
 	 */	
 	public String runCommand(String[] commandArgs, JShell shell) {
+		return collectOutput(commandArgs, shell);
+	}
+	
+	/**
+	 * Execute "ls" command, writing the listing of each directory
+	 * to out as soon as it is listed
+	 * @param commandArgs	The arguments passed by user
+	 * @shell JShell	 JShell object for current session
+	 * @param out	The destination of the listings and errors
+	 */	
+	public void runCommand(String[] commandArgs, JShell shell, OutputSink out) {
 		
 		// Check if output needs to be redirected
-		if (checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}
+		commandArgs = takeRedirect(commandArgs);
 		
 		// Case 0: Invalid arguments
 		if (!isValidArgs(commandArgs)) {
-			return invalidArgsMessage;
+			out.error(invalidArgsMessage);
+			return;
 		}
 		
 		Directory cwd = shell.getWorkDir();
 		boolean recurse = isRecurseArg(commandArgs);
+		OutputSink sink = outputSink(out, shell);
 		
 		// Setup recurse array if necessary
 		if (recurse) {
@@ -54,16 +64,13 @@ public class ListFiles extends Command {
 		// Case 1: no path supplied
 		if (commandArgs.length == 1) {
 			if (recurse) {
-				result = directoryRecurser(new Directory[]{cwd});
+				directoryRecurser(cwd, sink);
 			} else {
-				result = cwd.toString();
+				sink.write(cwd.toString());
 			}
-			
-			return result;
 		}
 		
 		String path;
-		boolean pathIsFile;
 		boolean isDir;
 		ShellFile target;
 		int length = commandArgs.length;
@@ -80,24 +87,20 @@ public class ListFiles extends Command {
 				isDir = target.isDirectory();
 				
 				if (recurse && isDir) {
-					result += directoryRecurser(new Directory[]{(Directory) target});
+					directoryRecurser((Directory) target, sink);
 				} else {
-					result += target.toString();
+					sink.write(target.toString());
 				}
 				
 			} catch (DirectoryException e) {
-				errors += e.getMessage() + "\n";
+				sink.error(e.getMessage() + "\n");
 			}			
 		}
 		
-		// Send output to file
-		if (isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
-			return errors;
+		// Finish the file the output was sent to
+		if (sink != out) {
+			sink.end();
 		}
-		
-		// Send output to console
-		else 	return errors + result;
 	}
 	
 	private static boolean isRecurseArg(String[] commandArgs) {
@@ -109,12 +112,12 @@ public class ListFiles extends Command {
 	 * Create a formatted string representation of a directory's contents
 	 *
 	 * @param dir the directory to create a string representation of
+	 * @param dirPath the path of dir
 	 * @return String the formatted representation of dir
 	 */
-	private String directoryFormatter(Directory dir) {
+	private String directoryFormatter(Directory dir, String dirPath) {
 		
 		String result;
-		String dirPath = dir.getPath();
 		String dirContents = dir.toString();
 		
 		result = dirPath + ":\n";
@@ -126,46 +129,25 @@ public class ListFiles extends Command {
 
 	}
 	
-	private String directoryRecurser(Directory[] dirArray) {
-		
-		// Case 0: dirArray is empty
-		if (dirArray.length == 0) {
-			return "";
-		}
+	/**
+	 * Write a formatted representation of a directory's contents
+	 * followed by that of all its subdirectories, depth first
+	 *
+	 * @param dir the directory to start from
+	 * @param out the destination of the formatted representation
+	 */
+	private void directoryRecurser(Directory dir, OutputSink out) {
 		
-		String result = new String();
-		Directory dir;
-		Directory[] subDirArray;
-		String dirName;
-		String dirContents;
-		int length = dirArray.length;
+		// Write the formatted contents of this directory
+		out.write(directoryFormatter(dir, dir.getPath()));
 		
-		// Append the contents formatted contents of each
-		// file to the result
-		int i;
-		for (i = 0; i < length; i++) {
-
-			dir = dirArray[i];
-			int dirLength = dir.length();
-			result += directoryFormatter(dir);
-			
-			subDirArray = new Directory[dirLength];
-			int index = 0;
-			for (ShellFile file : dir) {
-				if (file.isDirectory()) {
-					subDirArray[index++] = (Directory) file;
-				}
+		// Write the formatted contents of each subdirectory
+		TreeWalker walker = new TreeWalker(dir);
+		for (ShellFile file : walker) {
+			if (file.isDirectory()) {
+				out.write(directoryFormatter((Directory) file, walker.getPath()));
 			}
-			
-			// Truncate the directory array to fit amount
-			// of added directories perfectly
-			subDirArray = Arrays.copyOf(subDirArray, index);
-			
-			result += directoryRecurser(subDirArray);
-
 		}
-		
-		return result;
 
 	}
 		
@@ -180,6 +162,13 @@ public class ListFiles extends Command {
 		return (cmdArgs.length >= 1);
 	}
 		
+	/**
+	 * Listing never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	public String[] getHelp() {
 		String[] helpDocs = {cmdName, // Name
 							"0", // Min Arguments
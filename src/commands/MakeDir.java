@@ -31,10 +31,7 @@ public class MakeDir extends Command {
 		Directory cwd = shell.getWorkDir();
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}
+		commandArgs = takeRedirect(commandArgs);
 		
 		// Check for correct number of arguments
 		if (!isValidArgs(commandArgs))
@@ -75,8 +72,8 @@ public class MakeDir extends Command {
 		}
 		
 		// Send output to file
-		if(isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			errors += processOutput(shell, result);
 			return errors;
 		}
 		
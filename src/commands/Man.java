@@ -26,6 +26,9 @@ public class Man extends Command {
 	 */	
 	public String runCommand(String[] commandArgs, JShell shell) {
 		
+		// Start from no output, in case this object ran before
+		reset();
+		
 		// Check for correct number of arguments
 		if(!isValidArgs(commandArgs))
 			return invalidArgsMessage;		
@@ -103,6 +106,13 @@ public class Man extends Command {
 		
 	}
 	
+	/**
+	 * Showing documentation never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	/**
 	 * Documentation for Man
 	 *
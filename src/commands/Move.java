@@ -29,8 +29,7 @@ public class Move extends Copy {
 	 */	
 	public void processFile(String sourcePath, String destPath, JShell shell) throws DirectoryException
 	{
-		super.processFile(sourcePath, destPath, shell);
-		delete(sourcePath,shell);
+		relink(sourcePath, destPath, shell);
 	}
 
 	/**
@@ -43,8 +42,36 @@ public class Move extends Copy {
 	 */
 	public void processDirectory(String sourcePath, String destPath, JShell shell) throws DirectoryException
 	{
-		super.processDirectory(sourcePath, destPath, shell);
-		delete(sourcePath,shell);
+		relink(sourcePath, destPath, shell);
+	}
+	
+	/**
+	 * Move file or folder to specified directory by
+	 * detaching it from its parent and adding it to the
+	 * destination, without copying anything under it.
+	 * Shortcuts to it keep pointing to it.
+	 *  
+	 * @param sourcePath Absolute path of object being moved
+	 * @param destPath Absolute path of location of move
+	 * @throws DirectoryException 
+	 * @shell JShell The JSell object for current session
+	 */
+	private void relink(String sourcePath, String destPath, JShell shell) throws DirectoryException
+	{
+		//Get file/folder to move and destination folder
+		ShellFile moveMe = DirectoryNavigator.getFile(sourcePath, shell.getWorkDir());
+		Directory destDir = (Directory) DirectoryNavigator.getFile(destPath, shell.getWorkDir());
+		
+		//A folder can't be moved into itself or a folder under it
+		for (Directory folder = destDir; folder != null; folder = folder.getParent())
+		{
+			if (folder == moveMe)
+			{
+				throw new DirectoryException(copyToSelfMessage);
+			}
+		}
+		
+		((ShellDirectory) moveMe.getParent()).moveFile(moveMe.getName(), (ShellDirectory) destDir);
 	}
 	
 	/**
@@ -29,10 +29,7 @@ public class PresentWorkDir extends Command {
 		Directory workDir = shell.getWorkDir();
 		
 		// Check if output needs to be redirected
-		if(checkForRedirect(commandArgs)) {
-			isRedirecting = true;
-			commandArgs = getArgs(commandArgs);
-		}		
+		commandArgs = takeRedirect(commandArgs);
 		
 		if (!isValidArgs(commandArgs)) {
 			// give an error message to user but after that print pwd
@@ -41,8 +38,8 @@ public class PresentWorkDir extends Command {
 		result += workDir.getPath();
 
 		// Send output to file
-		if(isRedirecting) {
-			errors += processOutput(redirectArgs, shell, result);
+		if(redirect != null) {
+			errors += processOutput(shell, result);
 			return errors;
 		}
 		
@@ -61,6 +58,13 @@ public class PresentWorkDir extends Command {
 		return (cmdArgs.length == 1);
 	}
 
+	/**
+	 * Printing the working directory never changes the file system
+	 */
+	public boolean readsOnly() {
+		return true;
+	}
+	
 	/**
 	 * Documentation for PresentWorkDir
 	 * 
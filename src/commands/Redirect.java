@@ -0,0 +1,103 @@
+package src.commands;
+
+import src.shell.CommandLine;
+
+/**
+ * Where the output of a command is redirected to: the path of a file,
+ * and whether the output is appended to it (">>") or written to a new
+ * file (">").
+ *
+ * A command line is redirected if exactly one of its arguments is the
+ * operator ">" or ">>". The argument after it is the path, and neither
+ * is passed on to the command, but any arguments after the path are.
+ */
+public class Redirect {
+
+	public static final String OVERWRITE = CommandLine.OVERWRITE;
+	public static final String APPEND = CommandLine.APPEND;
+
+	private String path;
+	private boolean append;
+	private String[] args;
+
+	/**
+	 * Constructor for Redirect
+	 *
+	 * @param path the path of the file, or the empty String if none was given
+	 * @param append true to append to the file, false to create it
+	 * @param args the arguments of the command, without the redirect
+	 */
+	public Redirect(String path, boolean append, String[] args) {
+		this.path = path;
+		this.append = append;
+		this.args = args;
+	}
+
+	/**
+	 * Find the redirect in the arguments of a command, if any, taking
+	 * every ">" or ">>" as an operator
+	 *
+	 * @param cmdArgs the arguments of the command
+	 * @return the redirect, or null if the output is not redirected
+	 */
+	public static Redirect find(String[] cmdArgs) {
+		return find(new CommandLine(cmdArgs));
+	}
+
+	/**
+	 * Find the redirect in a command line, if any, with a single pass
+	 * over the arguments
+	 *
+	 * @param line the command line
+	 * @return the redirect, or null if the output is not redirected
+	 */
+	public static Redirect find(CommandLine line) {
+
+		// Find the only redirect operator
+		String[] cmdArgs = line.getArgs();
+		int symbol = -1;
+		for (int i = 1; i < cmdArgs.length; i++) {
+			if (line.isOperator(i, OVERWRITE) || line.isOperator(i, APPEND)) {
+				if (symbol != -1) {
+					return null;
+				}
+				symbol = i;
+			}
+		}
+		if (symbol == -1) {
+			return null;
+		}
+
+		// Leave out the symbol and the path
+		boolean hasPath = (symbol + 1 < cmdArgs.length);
+		int removed = hasPath ? 2 : 1;
+		String[] args = new String[cmdArgs.length - removed];
+		System.arraycopy(cmdArgs, 0, args, 0, symbol);
+		System.arraycopy(cmdArgs, symbol + removed, args, symbol, args.length - symbol);
+
+		String path = hasPath ? cmdArgs[symbol + 1] : "";
+		return new Redirect(path, cmdArgs[symbol].equals(APPEND), args);
+	}
+
+	/**
+	 * @return the path of the file, or the empty String if none was given
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return true to append to the file, false to create a new file
+	 */
+	public boolean isAppend() {
+		return append;
+	}
+
+	/**
+	 * @return the arguments of the command, without the redirect
+	 */
+	public String[] getArgs() {
+		return args;
+	}
+
+}
@@ -0,0 +1,196 @@
+package src.commands;
+
+import java.util.ArrayList;
+
+import src.filesys.*;
+import src.shell.JShell;
+import src.shell.OutputSink;
+
+/**
+ * Writes the output of a command to the file it is redirected to. With
+ * ">" a new file is created, and with ">>" the output is appended to an
+ * existing file on a new line. As with echo, white space around the
+ * output is left out, so trailing white space is only written once more
+ * output follows it.
+ *
+ * The file is looked up when the first output is written, or when the
+ * command ends without output. Errors, including those while opening the
+ * file, are passed on to the sink the user sees.
+ *
+ * The output is only put in the tree when the command ends, chunk by
+ * chunk without joining it: until then a new file is not in its
+ * directory, and an existing one keeps its contents. A command reading
+ * the tree, e.g. "grep -R x / > out" or "cat f f >> f", thus never reads
+ * its own output.
+ */
+class RedirectSink extends OutputSink {
+
+	private String path;
+	private boolean append;
+	private JShell shell;
+	private OutputSink errors;
+
+	// The file to append to, or the directory to create the file in
+	// and its name, once opened without error
+	private boolean opened;
+	private boolean valid;
+	private ShellFile file;
+	private Directory dir;
+	private String name;
+
+	// The output, in the chunks it was written in
+	private ArrayList<String> chunks;
+
+	// White space written after the last other output, held back
+	private StringBuilder space;
+	private boolean started;
+
+	/**
+	 * Constructor for RedirectSink
+	 *
+	 * @param redirect the file to write to
+	 * @param shell JShell object for current session
+	 * @param errors the sink to pass errors on to
+	 */
+	RedirectSink(Redirect redirect, JShell shell, OutputSink errors) {
+		append = redirect.isAppend();
+		path = redirect.getPath();
+		this.shell = shell;
+		this.errors = errors;
+		chunks = new ArrayList<String>();
+		space = new StringBuilder();
+	}
+
+	public void write(String text) {
+		if (!opened) {
+			open();
+		}
+		if (!valid) {
+			return;
+		}
+
+		// Leave out white space at the start of the output
+		int start = 0;
+		if (!started) {
+			while (start < text.length() && text.charAt(start) <= ' ') {
+				start++;
+			}
+			if (start == text.length()) {
+				return;
+			}
+			started = true;
+		}
+
+		// Hold back white space at the end, until more output follows it
+		int end = text.length();
+		while (end > start && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (end == start) {
+			space.append(text, start, text.length());
+			return;
+		}
+
+		if (space.length() > 0) {
+			chunks.add(space.toString());
+			space.setLength(0);
+		}
+		chunks.add((start == 0 && end == text.length()) ? text : text.substring(start, end));
+		space.append(text, end, text.length());
+	}
+
+	public void error(String text) {
+		errors.error(text);
+	}
+
+	/**
+	 * Put the output in the tree, now that the command is done
+	 */
+	public void end() {
+		if (!opened) {
+			open();
+		}
+		if (!valid) {
+			return;
+		}
+
+		ShellFile target = append ? file : new ShellFile(name);
+		ContentsWriter writer = new ContentsWriter(target);
+		if (append) {
+			writer.write("\n");
+		}
+		for (String chunk : chunks) {
+			writer.write(chunk);
+		}
+		writer.close();
+		chunks.clear();
+
+		// A new file is indexed as it is added
+		if (!append) {
+			try {
+				dir.addFile(target);
+			} catch (DirectoryException e) {
+				errors.error(String.format(Command.fileExistsMessage, name));
+			}
+		}
+	}
+
+	/**
+	 * Find the file to append to, or check that a new file can be created
+	 */
+	private void open() {
+		opened = true;
+		if (path.length() == 0) {
+			errors.error(Command.invalidArgsMessage);
+			return;
+		}
+
+		try {
+			if (append) {
+				file = DirectoryNavigator.getFile(path, shell.getWorkDir(), true);
+				if (file.isDirectory()) {
+					errors.error(String.format(Command.notFoundMessage, path, "file or directory"));
+					return;
+				}
+			} else if (!findDirectory()) {
+				return;
+			}
+			valid = true;
+		} catch (DirectoryException e) {
+			errors.error(String.format(Command.notFoundMessage, path, "file or directory"));
+		}
+	}
+
+	/**
+	 * Find the directory to create a new file at the path in
+	 *
+	 * @return true if the file can be created, false if it cannot
+	 * @throws DirectoryException if the directory of the path does not exist
+	 */
+	private boolean findDirectory() throws DirectoryException {
+		int lastSlash = path.lastIndexOf('/');
+		name = path.substring(lastSlash + 1);
+		if (lastSlash == -1) {
+			dir = shell.getWorkDir();
+		} else {
+			ShellFile parent = DirectoryNavigator.getFile(
+					(lastSlash == 0) ? "/" : path.substring(0, lastSlash), shell.getWorkDir(), true);
+			if (!parent.isDirectory()) {
+				errors.error(String.format(Command.notFoundMessage, path, "file or directory"));
+				return false;
+			}
+			dir = (Directory) parent;
+		}
+
+		if (dir.hasFile(name)) {
+			if (dir.getFile(name).isDirectory()) {
+				errors.error(String.format(Command.notFoundMessage, path, "file or directory"));
+			} else {
+				errors.error(String.format(Command.fileExistsMessage, name));
+			}
+			return false;
+		}
+		return true;
+	}
+
+}
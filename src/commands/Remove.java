@@ -31,30 +31,21 @@ public class Remove extends Command {
 		// Setup
 		String errors = new String();
 		Directory cwd = shell.getWorkDir();
+		
+		// Redirection setup
+		cmdArgs = takeRedirect(cmdArgs);
 		boolean flag = isFlag(cmdArgs);
-		boolean redirect = checkForRedirect(cmdArgs);
 		
 		// Flag setup
 		if (flag) {
 			cmdArgs = removeOptionArg(cmdArgs);
 		}
-
-		// Redirection setup
-		if (redirect) {
-			cmdArgs = getArgs(cmdArgs);
-		}
 		
 		// Case 0: Invalid Arguments
 		if (!isValidArgs(cmdArgs)) {
 			return invalidArgsMessage;
 		}
 		
-		// Check if output needs to be redirected
-		if (checkForRedirect(cmdArgs)) {
-			isRedirecting = true;
-			cmdArgs = getArgs(cmdArgs);
-		}
-		
 		String path;
 		boolean found;
 		boolean removed;
@@ -112,8 +103,8 @@ public class Remove extends Command {
 		}
 
 		// Optionally redirect output
-		if (redirect) {
-			errors += processOutput(redirectArgs, shell, result);
+		if (redirect != null) {
+			errors += processOutput(shell, result);
 			result = errors;
 		} else {
 			result = errors + result;
@@ -164,8 +155,9 @@ public class Remove extends Command {
 	}
 	
 	/**
-	 * Recursively ask to remove subdirectories of given directory
-	 * Starts recursion from the directory fartherst away from the root
+	 * Ask to remove the files and subdirectories of given directory,
+	 * starting from the directory farthest away from the root. A
+	 * directory is only asked about once everything in it was removed.
 	 *  
 	 * @param target The directory to remove along with
 	 * its subdirectories and files
@@ -173,42 +165,30 @@ public class Remove extends Command {
 	 */
 	private boolean removeAskRecurse(ShellFile target) {
 		
-		boolean recurseAnswer = true;
-		boolean answer = false;
-		
-		// Case 0: Target is a directory, recurse first
+		// Case 0: Target is a directory, ask about everything in it first
 		if (target.getClass() == ShellDirectory.class) {
-			
-			for (ShellFile inspect : ((ShellDirectory) target)) {
-				if (!removeAskRecurse(inspect)) {
-					recurseAnswer = false;
-				}
-			}
-			
-			if (!recurseAnswer) {
+			new TreeWalker((Directory) target).walk(new RemoveVisitor(this));
+			if (((Directory) target).length() > 0) {
 				return false;
 			}
-			
-			answer = InputOutput.askUser(String.format(ASK_USER, target.getName()));
-			
-			if (answer) {
-				removeItem(target);
-				return true;
-			} else {
-				return false;
-			}
-
 		}
 		
-		answer = InputOutput.askUser(String.format(ASK_USER, target.getName()));
+		return askRemove(target);
 		
-		// Case 1: The answer is yes and the target is a file
+	}
+	
+	/**
+	 * Ask to remove target, and remove it if the answer is yes
+	 * 
+	 * @param target The file or directory to remove
+	 * @return boolean whether the user has decided to remove target
+	 */
+	boolean askRemove(ShellFile target) {
+		boolean answer = InputOutput.askUser(String.format(ASK_USER, target.getName()));
 		if (answer) {
 			removeItem(target);
 		}
-		
 		return answer;
-		
 	}
 	
 	/**
@@ -227,4 +207,32 @@ public class Remove extends Command {
 		return helpDocs;
 	}
 	
-}
\ No newline at end of file
+}
+
+
+/**
+ * Asks about files as they are visited, and about directories
+ * once they are visited again, if everything in them was removed
+ */
+class RemoveVisitor extends TreeVisitor {
+	
+	private Remove remove;
+	
+	public RemoveVisitor(Remove remove) {
+		this.remove = remove;
+	}
+	
+	public boolean preVisit(ShellFile file, TreeWalker walker) {
+		if (file.getClass() != ShellDirectory.class) {
+			remove.askRemove(file);
+		}
+		return true;
+	}
+	
+	public void postVisit(ShellFile entry, TreeWalker walker) {
+		if (((Directory) entry).length() == 0) {
+			remove.askRemove(entry);
+		}
+	}
+	
+}
@@ -0,0 +1,235 @@
+package src.filesys;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * An inverted index from the trigrams in the contents of files to the
+ * files containing them. Trigrams are only taken within lines, so a file
+ * containing a line that contains some text contains every trigram of
+ * that text. A search for text can then be limited to the files
+ * containing all of its trigrams.
+ *
+ * The index is kept by the root directory of a tree, and is updated as
+ * files in the tree are added, removed or written to.
+ */
+public class ContentIndex implements Serializable {
+
+	static final long serialVersionUID = 42L;
+
+	// Number of characters in a trigram
+	public static final int GRAM_LENGTH = 3;
+
+	private HashMap<Long, HashSet<ShellFile>> postings;
+	private HashMap<ShellFile, HashSet<Long>> grams;
+
+	/**
+	 * Constructor for ContentIndex
+	 * Creates a new empty index
+	 */
+	public ContentIndex() {
+		postings = new HashMap<Long, HashSet<ShellFile>>();
+		grams = new HashMap<ShellFile, HashSet<Long>>();
+	}
+
+	/**
+	 * Add the contents of file to the index, or of every file under it
+	 * if it is a directory
+	 *
+	 * @param file the file or directory to add
+	 */
+	public synchronized void addTree(ShellFile file) {
+
+		// Case 0: directory, add the files under it
+		if (file.isDirectory()) {
+			for (ShellFile child : new TreeWalker((Directory) file)) {
+				if (!child.isDirectory() && !child.isShortCut()) {
+					update(child);
+				}
+			}
+		}
+
+		// Case 1: file, shortcuts have no contents of their own
+		else if (!file.isShortCut()) {
+			update(file);
+		}
+	}
+
+	/**
+	 * Remove file from the index, or every file under it
+	 * if it is a directory
+	 *
+	 * @param file the file or directory to remove
+	 */
+	public synchronized void removeTree(ShellFile file) {
+
+		// Case 0: directory, remove the files under it
+		if (file.isDirectory()) {
+			for (ShellFile child : new TreeWalker((Directory) file)) {
+				if (!child.isDirectory()) {
+					remove(child);
+				}
+			}
+		}
+
+		// Case 1: file
+		else {
+			remove(file);
+		}
+	}
+
+	/**
+	 * Index the contents of file again, after they were replaced
+	 *
+	 * @param file the file whose contents changed
+	 */
+	public synchronized void update(ShellFile file) {
+		remove(file);
+		HashSet<Long> fileGrams = new HashSet<Long>();
+		grams.put(file, fileGrams);
+
+		Iterator<String> lines = file.getContents().lineIterator();
+		while (lines.hasNext()) {
+			addGrams(file, fileGrams, lines.next());
+		}
+	}
+
+	/**
+	 * Index text appended to the contents of file. The text must start
+	 * a new line, so that no trigram spans the old and new contents.
+	 *
+	 * @param file the file appended to
+	 * @param text the text appended, at the start of a line
+	 */
+	public synchronized void append(ShellFile file, String text) {
+		HashSet<Long> fileGrams = grams.get(file);
+		if (fileGrams == null) {
+			update(file);
+			return;
+		}
+
+		int start = 0;
+		int end = text.indexOf('\n');
+		while (end != -1) {
+			addGrams(file, fileGrams, text.substring(start, end));
+			start = end + 1;
+			end = text.indexOf('\n', start);
+		}
+		addGrams(file, fileGrams, text.substring(start));
+	}
+
+	/**
+	 * Find the files which may contain text within a line
+	 *
+	 * @param text the text to search for, without line breaks
+	 * @return every indexed file containing all trigrams of text, or null
+	 * if text is too short to have trigrams
+	 */
+	public synchronized Set<ShellFile> candidates(String text) {
+
+		// Case 0: no trigrams to look up
+		if (text.length() < GRAM_LENGTH) {
+			return null;
+		}
+
+		// Case 1: intersect the files of each trigram, smallest first
+		ArrayList<HashSet<ShellFile>> sets = new ArrayList<HashSet<ShellFile>>();
+		HashSet<ShellFile> smallest = null;
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+			HashSet<ShellFile> files = postings.get(gram(text, i));
+			if (files == null) {
+				return new HashSet<ShellFile>();
+			}
+			sets.add(files);
+			if (smallest == null || files.size() < smallest.size()) {
+				smallest = files;
+			}
+		}
+
+		HashSet<ShellFile> result = new HashSet<ShellFile>();
+		for (ShellFile file : smallest) {
+			boolean inAll = true;
+			for (HashSet<ShellFile> files : sets) {
+				if (!files.contains(file)) {
+					inAll = false;
+					break;
+				}
+			}
+			if (inAll) {
+				result.add(file);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the number of files in the index
+	 */
+	public synchronized int fileCount() {
+		return grams.size();
+	}
+
+	/**
+	 * @return the number of distinct trigrams in the index
+	 */
+	public synchronized int gramCount() {
+		return postings.size();
+	}
+
+	/**
+	 * Remove file from the index
+	 * @param file the file to remove
+	 */
+	private void remove(ShellFile file) {
+		HashSet<Long> fileGrams = grams.remove(file);
+		if (fileGrams == null) {
+			return;
+		}
+
+		for (Long key : fileGrams) {
+			HashSet<ShellFile> files = postings.get(key);
+			files.remove(file);
+			if (files.isEmpty()) {
+				postings.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Add the trigrams of one line of the contents of file
+	 *
+	 * @param file the file containing line
+	 * @param fileGrams the trigrams already indexed for file
+	 * @param line the line to index
+	 */
+	private void addGrams(ShellFile file, HashSet<Long> fileGrams, String line) {
+		for (int i = 0; i + GRAM_LENGTH <= line.length(); i++) {
+			Long key = gram(line, i);
+			if (fileGrams.add(key)) {
+				HashSet<ShellFile> files = postings.get(key);
+				if (files == null) {
+					files = new HashSet<ShellFile>();
+					postings.put(key, files);
+				}
+				files.add(file);
+			}
+		}
+	}
+
+	/**
+	 * @param text the text to take the trigram from
+	 * @param start the index of the first character of the trigram
+	 * @return the trigram packed into a single key
+	 */
+	private static Long gram(String text, int start) {
+		return ((long) text.charAt(start) << 32) |
+				((long) text.charAt(start + 1) << 16) |
+				text.charAt(start + 2);
+	}
+
+}
@@ -0,0 +1,79 @@
+package src.filesys;
+
+/**
+ * Appends text to the end of the contents of a file as it is produced,
+ * e.g. the output of a command redirected to the file, so that the text
+ * never has to be joined into one String first.
+ *
+ * The content index of the tree is kept up to date a line at a time:
+ * only the last line written, which may still be continued, is held back
+ * until it is complete or the writer is closed.
+ */
+public class ContentsWriter {
+
+	private ShellFile file;
+
+	// The text written since the last line break, not yet indexed
+	private StringBuilder line;
+
+	/**
+	 * Constructor for ContentsWriter
+	 * The contents of file must end at the start of a line, e.g. be empty
+	 *
+	 * @param file the file to append to
+	 */
+	public ContentsWriter(ShellFile file) {
+		this.file = file;
+		line = new StringBuilder();
+	}
+
+	/**
+	 * @return the file written to
+	 */
+	public ShellFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Append text to the contents of the file
+	 *
+	 * @param text the text to append
+	 */
+	public void write(String text) {
+		if (text.length() == 0) {
+			return;
+		}
+
+		file.prepareChange();
+		file.getContents().append(text);
+		file.touch();
+
+		ContentIndex index = file.getContentIndex();
+		if (index == null) {
+			return;
+		}
+
+		// Index the lines completed by text, and hold back the rest
+		int end = text.lastIndexOf('\n');
+		if (end == -1) {
+			line.append(text);
+		} else {
+			line.append(text, 0, end);
+			index.append(file, line.toString());
+			line.setLength(0);
+			line.append(text, end + 1, text.length());
+		}
+	}
+
+	/**
+	 * Index the last line written, once nothing more will be written
+	 */
+	public void close() {
+		ContentIndex index = file.getContentIndex();
+		if (index != null && line.length() > 0) {
+			index.append(file, line.toString());
+		}
+		line.setLength(0);
+	}
+
+}
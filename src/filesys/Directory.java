@@ -25,6 +25,8 @@ public interface Directory extends Iterable<ShellFile>, Serializable {
 	public Directory getParent();
 	public Directory getRoot();
 	public Iterator<ShellFile> iterator();
+	public ShellFile firstFile();
+	public ShellFile nextFile(ShellFile current);
 	public boolean isSubDirectory(Directory parentDir);	
 
 }
@@ -1,14 +1,12 @@
 package src.filesys;
 
-import java.util.ArrayList;
-import java.util.Map.*;
 import java.util.HashMap;
 
 
 /**
  * This class provides methods to validate and traverse a file or directory
  * path and retrieve the object represented by that path
- * @version 2.0
+ * @version 3.0
  */
 public class DirectoryNavigator {
 
@@ -18,6 +16,17 @@ public class DirectoryNavigator {
 	// Map of symbolic links
 	public static HashMap<ShellFile, ShellShortcut> linkMap = new HashMap<ShellFile, ShellShortcut>();
 	
+	// Maximum number of shortcuts followed in a row
+	private static final int SHORTCUT_LIMIT = 40;
+	
+	// Cache of resolved paths, keyed by the directory they were resolved from
+	private static final int CACHE_LIMIT = 65536;
+	private static HashMap<Directory, HashMap<String, ResolvedPath>> pathCache =
+			new HashMap<Directory, HashMap<String, ResolvedPath>>();
+	private static int cacheSize = 0;
+	private static long cacheHits = 0;
+	private static long cacheMisses = 0;
+	
 	
 	/**
 	 * Check if file or directory exists at path	
@@ -28,36 +37,10 @@ public class DirectoryNavigator {
 	public static boolean exists (String path, Directory pwd) {
 
 		try {
-			// Get absolute path first
-			String absPath = getAbsolutePath(path, pwd);
-		
-			String[] pathArray = absPath.split("/");
-			Directory current = pwd.getRoot();	
-			ShellFile temp;
-			
-			// Root passed as sole argument
-			if (pathArray.length == 1) 
-				return true;
-			
-			// Traverse path starting from root
-			for (int i=1; i<pathArray.length; i++){
-				
-				String name = pathArray[i];
-				if (!current.hasFile(name))		// File not found.
-					return false;
-				
-				temp = current.getFile(name);
-				if (temp.getClass() == ShellDirectory.class)	 // Directory found. Traverse deeper.
-					current = (Directory) temp;
-				//else if(temp.getClass() == ShellShortcut.class)
-					//current = (Directory) getShortcutTarget(temp);
-				else continue;				
-			}
-	
+			resolve(path, pwd, true);
 			return true;
-			
 		} catch (DirectoryException e) {					
-			return false;		// Invalid path. Cannot get absolute path.
+			return false;		// Invalid path
 		}		
 		
 	}
@@ -65,6 +48,7 @@ public class DirectoryNavigator {
 	
 	/**
 	 * Traverse path and return it's absolute path if valid
+	 * An absolute path which does not exist is returned as given
 	 * @param path The relative pathname to traverse
 	 * @param dir The working directory to start traversing from
 	 * @return The absolute path of given relative path
@@ -74,135 +58,270 @@ public class DirectoryNavigator {
 	public static String getAbsolutePath (String path, Directory workDir) 
 			throws DirectoryException {
 
-		String[] pathArray = path.split("/");
-		String output = "";
+		String absPath;
 		
-		// Path is already absolute
-		if (path.startsWith("/")) {
-			if(!path.endsWith("/")) 	
-				path += "/";		// Make every path end with a "/"
-			return path;	
+		try {
+			absPath = resolve(path, workDir, true).getPath();
+		} catch (DirectoryException e) {
+			
+			// Path is already absolute
+			if (!path.startsWith("/"))
+				throw e;
+			absPath = path;
 		}
 		
-		// Store names of traversed files
-		ArrayList<String> values = new ArrayList<String>();		
-		Directory current = workDir;		// starting point
-		ShellFile temp;		
-		
-		// Iteratively traverse the path
-		for (int i=0; i<pathArray.length; i++) {		
-			String filename = pathArray[i];
+		// Make every path end with a "/"
+		if (!absPath.endsWith("/"))
+			absPath += "/";
+		return absPath;
+	}
 
+	/**
+	 * Retrieve file or directory object represented by path
+	 * A shortcut at the end of path is returned itself, not its target
+	 * 
+	 * @param path The pathname for file or directory to retrieve
+	 * @param pwd Current working directory
+	 * @return The file or directory object retrieved
+	 * @throws DirectoryException when file or directory does not exist at path
+	 */
+	public static ShellFile getFile (String path, Directory pwd) 
+			throws DirectoryException {
+		return resolve(path, pwd, false).getFile();
+	}
+	
+	
+	/**
+	 * Retrieve file, directory or link object represented by path
+	 * Specify whether to retrieve link object or the target pointed to by link
+	 * 
+	 * @param path The pathname for file or directory to retrieve
+	 * @param pwd Current working directory
+	 * @param bool True if target pointed to by the link is to be returned
+	 * False if link object itself is to be returned. 
+	 * @return The file, directory or link object retrieved
+	 * @throws DirectoryException when file, directory or link does not exist at path
+	 */
+	public static ShellFile getFile (String path, Directory pwd, boolean bool)
+			throws DirectoryException {
+		return resolve(path, pwd, bool).getFile();
+	}
+	
+	
+	/**
+	 * Resolve path to the object it represents and its canonical path
+	 * in a single walk of the tree. ".", ".." and shortcuts in the
+	 * middle of path are resolved as they are met.
+	 * 
+	 * @param path The pathname for file or directory to resolve
+	 * @param pwd Current working directory
+	 * @param follow True if a shortcut at the end of path is to be
+	 * replaced by its target, false if the shortcut itself is wanted
+	 * @return The resolved object and its canonical path
+	 * @throws DirectoryException when file or directory does not exist at path
+	 */
+	public static ResolvedPath resolve (String path, Directory pwd, boolean follow)
+			throws DirectoryException {
+		
+		// Path has been resolved before
+		ResolvedPath resolved = getCached(path, pwd);
+		if (resolved != null) {
+			countHit();
+		} else {
+			countMiss();
+			resolved = walk(path, pwd);
+			putCached(path, pwd, resolved);
+		}
+		
+		// Replace a shortcut at the end of path by its target
+		ShellFile file = resolved.getFile();
+		if (follow && file.isShortCut()) {
+			file = followShortcut((ShellShortcut) file, pwd);
+			resolved = new ResolvedPath(file);
+		}
+		
+		return resolved;
+	}
+	
+	
+	/**
+	 * Walk the tree once along path. Names are read from path in place,
+	 * one "/" separated segment at a time.
+	 * 
+	 * @param path The pathname to walk
+	 * @param pwd Current working directory
+	 * @return The object at the end of path and its canonical path
+	 * @throws DirectoryException when file or directory does not exist at path
+	 */
+	private static ResolvedPath walk (String path, Directory pwd) 
+			throws DirectoryException {
+		
+		// The empty path names nothing
+		if (path.length() == 0)
+			throw new DirectoryException(String.format
+					(notFoundMessage, path, "file or directory"));
+		
+		// Absolute paths start from root, relative ones from pwd
+		Directory current = path.startsWith("/") ? pwd.getRoot() : pwd;
+		ShellFile file = (ShellFile) current;
+		int length = path.length();
+		int start = 0;
+		
+		while (start < length) {
+			
+			int end = path.indexOf('/', start);
+			if (end == -1)
+				end = length;
+			int size = end - start;
+			
+			// Case 0: Empty segment, as in "a//b" or a trailing "/"
+			if (size == 0) {
+				start = end + 1;
+				continue;
+			}
+			
+			// Only directories can be traversed deeper
+			if (!file.isDirectory())
+				throw new DirectoryException(String.format
+						(notFoundMessage, path.substring(start, end), "file or directory"));
+			
 			// Case 1: "." Relative to current directory
-			if (filename.equalsIgnoreCase(".")) {
+			if (size == 1 && path.charAt(start) == '.') {
+				start = end + 1;
 				continue;
 			}
 			
 			// Case 2: ".." Relative to parent directory
-			if (filename.equalsIgnoreCase("..")) {
+			if (size == 2 && path.startsWith("..", start)) {
 				
-				// Go up one level to parent directory
+				// Root is its own parent
 				if (current.getParent() != null)
-						current = current.getParent();
-				else{
-					current = workDir.getRoot();	// we have reached topmost level ie. root
-					values.clear();	// clear all stored filenames since our path
-											// will start from root now
-				}
+					current = current.getParent();
+				file = (ShellFile) current;
 			}
 			
 			// Case 3: (no dots) Relative to current directory
-			else{
+			else {
+				
+				String name = path.substring(start, end);
+				file = current.getFile(name);
 				
 				// File or directory not found in current directory
-				if (!current.hasFile(filename))
+				if (file == null)
 					throw new DirectoryException(String.format
-							(notFoundMessage, filename, "file or directory"));
+							(notFoundMessage, name, "file or directory"));
+				
+				// Shortcuts in the middle of path are always followed
+				if (file.isShortCut() && hasMoreSegments(path, end))
+					file = followShortcut((ShellShortcut) file, pwd);
 				
-				temp = current.getFile(filename);
-				if (temp.getClass() == ShellDirectory.class)	// Directory found. Traverse deeper.
-					current = (Directory) temp;
-				else if(temp.getClass() == ShellShortcut.class) {
-					ShellFile f = DirectoryNavigator.getFile(temp.getPath(), current, true);
-					if(f.getClass() == ShellFile.class)
-						values.add(f.getName());
-					else	current = (Directory) f;
-				}					
-				else	values.add(filename);		// File found. Store name.
+				if (file.isDirectory())
+					current = (Directory) file;
 			}
+			
+			start = end + 1;
 		}
 		
-		// String together names of all visited files
-		for (String s: values){
-			output += s + "/";
+		return new ResolvedPath(file);
+	}
+	
+	
+	/**
+	 * Check whether any non-empty segment of path follows index
+	 */
+	private static boolean hasMoreSegments (String path, int index) {
+		for (int i = index; i < path.length(); i++) {
+			if (path.charAt(i) != '/')
+				return true;
 		}
-		
-		// Return absolute path 
-		if (current.getPath().equals("/"))
-			return current.getPath() + output;
-		else	return current.getPath() + "/" + output;
-		
+		return false;
 	}
-
+	
+	
 	/**
-	 * Retrieve file or directory object represented by path
+	 * Retrieve the object a shortcut points to, following chains of
+	 * shortcuts up to a limit so that cycles cannot loop forever
 	 * 
-	 * @param path The pathname for file or directory to retrieve
+	 * @param link The shortcut to follow
 	 * @param pwd Current working directory
-	 * @return The file or directory object retrieved
-	 * @throws DirectoryException when file or directory does not exist at path
+	 * @return The file or directory the shortcut finally points to
+	 * @throws DirectoryException when the target does not exist
 	 */
-	public static ShellFile getFile (String path, Directory pwd) 
+	private static ShellFile followShortcut (ShellShortcut link, Directory pwd)
 			throws DirectoryException {
 		
-		// Get absolute path first
-		String absPath = getAbsolutePath(path, pwd);		
-		
-		String[] pathArray = absPath.split("/");
-		int size = pathArray.length;
-		Directory current = pwd.getRoot();
-		ShellFile file = new ShellFile();
+		ShellFile file = link;
+		for (int i = 0; i < SHORTCUT_LIMIT && file.isShortCut(); i++)
+			file = ((ShellShortcut) file).getTarget(pwd);
 		
-		// Check if path is valid
-		if(!exists(absPath, pwd))
+		if (file.isShortCut())
 			throw new DirectoryException(String.format
-					(notFoundMessage, pathArray[--size], "file or directory"));
-		
-		// Traverse path starting from root
-		for(int i=1; i<size; i++) {			
-			String fname = pathArray[i];
-			file = current.getFile(fname);	
-			
-			if(file.getClass() == ShellFile.class || file.getClass() == ShellShortcut.class)	
-				return file;
-			else current = (Directory) file;
+					(notFoundMessage, link.getTargetPath(), "file or directory"));
+		return file;
+	}
+	
+	/**
+	 * Discard all cached path resolutions. Must be called whenever the
+	 * directory tree is changed: a file is added, removed, renamed or
+	 * moved, or a link is broken.
+	 */
+	public static synchronized void invalidateCache() {
+		if (cacheSize > 0) {
+			pathCache.clear();
+			cacheSize = 0;
 		}
-		
-		return (ShellFile) current;
 	}
 	
+	/**
+	 * Get the number of path resolutions answered from the cache
+	 * @return Number of cache hits
+	 */
+	public static synchronized long getCacheHits() {
+		return cacheHits;
+	}
 	
 	/**
-	 * Retrieve file, directory or link object represented by path
-	 * Specify whether to retrieve link object or the target pointed to by link
-	 * 
-	 * @param path The pathname for file or directory to retrieve
-	 * @param pwd Current working directory
-	 * @param bool True if target pointed to by the link is to be returned
-	 * False if link object itself is to be returned. 
-	 * @return The file, directory or link object retrieved
-	 * @throws DirectoryException when file, directory or link does not exist at path
+	 * Get the number of path resolutions that had to traverse the tree
+	 * @return Number of cache misses
 	 */
-	public static ShellFile getFile (String path, Directory pwd, boolean bool)
-			throws DirectoryException {
+	public static synchronized long getCacheMisses() {
+		return cacheMisses;
+	}
+	
+	/**
+	 * Reset the cache hit and miss counters to zero
+	 */
+	public static synchronized void resetCacheStatistics() {
+		cacheHits = 0;
+		cacheMisses = 0;
+	}
+	
+	private static synchronized void countHit() {
+		cacheHits++;
+	}
+	
+	private static synchronized void countMiss() {
+		cacheMisses++;
+	}
+	
+	private static synchronized ResolvedPath getCached(String path, Directory pwd) {
+		HashMap<String, ResolvedPath> resolved = pathCache.get(pwd);
+		return (resolved == null) ? null : resolved.get(path);
+	}
+	
+	private static synchronized void putCached(String path, Directory pwd, ResolvedPath file) {
 		
-		ShellFile file = getFile(path, pwd);
-		if(file.getClass() == ShellShortcut.class && bool) {
-			ShellShortcut link = (ShellShortcut) file;
-			return link.getTarget(pwd);			
-		}	
+		// Start over rather than grow without bound
+		if (cacheSize >= CACHE_LIMIT)
+			invalidateCache();
 		
-		return file;		
+		HashMap<String, ResolvedPath> resolved = pathCache.get(pwd);
+		if (resolved == null) {
+			resolved = new HashMap<String, ResolvedPath>();
+			pathCache.put(pwd, resolved);
+		}
+		if (resolved.put(path, file) == null)
+			cacheSize++;
 	}
 	
 }
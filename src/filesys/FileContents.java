@@ -0,0 +1,448 @@
+package src.filesys;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The contents of a ShellFile, stored as a list of chunks rather than
+ * a single String, so that appending does not copy what is already
+ * stored. Readers can stream the chunks or the lines of the contents;
+ * the chunks are only joined into one String when toString() is called.
+ *
+ * The contents may also be compacted into a byte array, encoded as
+ * Latin-1 when every character fits in a byte, and otherwise as UTF-8
+ * or UTF-16, whichever is smaller, so compacting never makes the
+ * contents larger than the String holding them.
+ * Compacted contents are decoded each time they are read, a piece at a
+ * time when they are streamed, and text appended afterwards is kept in
+ * chunks after the compacted bytes.
+ */
+public class FileContents implements Serializable {
+
+	static final long serialVersionUID = 42L;
+
+	// Estimated sizes, in bytes, of the objects holding the contents
+	private static final int OBJECT_SIZE = 16;
+	private static final int ARRAY_SIZE = 16;
+	private static final int STRING_SIZE = OBJECT_SIZE + 8 + ARRAY_SIZE;
+	private static final int REFERENCE_SIZE = 4;
+
+	// Characters decoded at a time when streaming compacted text
+	private static final int PIECE_SIZE = 8192;
+
+	// Compacted text, which comes before the chunks, or null
+	private byte[] packed;
+	private boolean latin1;
+	private boolean wide;		// UTF-16 rather than UTF-8
+
+	private ArrayList<String> chunks;
+	private int length;
+
+	/**
+	 * Constructor for FileContents
+	 * Creates new empty contents
+	 */
+	public FileContents() {
+		chunks = new ArrayList<String>();
+		length = 0;
+	}
+
+	/**
+	 * Create a copy of other. The chunks themselves are immutable,
+	 * so only the list of chunks is copied, not the text.
+	 *
+	 * @param other the contents to copy
+	 */
+	public FileContents(FileContents other) {
+		synchronized (other) {
+			packed = other.packed;
+			latin1 = other.latin1;
+			wide = other.wide;
+			chunks = new ArrayList<String>(other.chunks);
+			length = other.length;
+		}
+	}
+
+	/**
+	 * Replace the contents with text
+	 * @param text the new contents
+	 */
+	public synchronized void set(String text) {
+		packed = null;
+		chunks.clear();
+		length = 0;
+		append(text);
+	}
+
+	/**
+	 * Add text to the end of the contents in amortized constant time
+	 * @param text the text to add
+	 */
+	public synchronized void append(String text) {
+		if (text.length() > 0) {
+			chunks.add(text);
+			length += text.length();
+		}
+	}
+
+	/**
+	 * @return the number of characters in the contents
+	 */
+	public synchronized int length() {
+		return length;
+	}
+
+	/**
+	 * Write the contents to out chunk by chunk, without joining them,
+	 * and decoding compacted text a piece at a time.
+	 * The chunks are taken while holding the lock, but written after
+	 * letting it go, as out may wait, e.g. for a pipeline stage which
+	 * is itself appending to these contents.
+	 *
+	 * @param out the destination of the contents
+	 * @throws IOException if out fails to accept the contents
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		Iterator<String> pieces = pieces();
+		while (pieces.hasNext()) {
+			out.append(pieces.next());
+		}
+	}
+
+	/**
+	 * Iterate over the lines of the contents, without joining the chunks
+	 * or decoding compacted text all at once.
+	 * Like String.split("\n"), trailing empty lines are not returned,
+	 * but empty contents consist of one empty line.
+	 *
+	 * @return an iterator over the lines of the contents
+	 */
+	public Iterator<String> lineIterator() {
+		return new LineIterator(pieces());
+	}
+
+	/**
+	 * Take the compacted text and the chunks as they are now, to be
+	 * read in pieces. The compacted bytes are never changed once made,
+	 * so they need not be copied.
+	 *
+	 * @return an iterator over pieces of the contents, in order
+	 */
+	private synchronized Iterator<String> pieces() {
+		return new Pieces(packed, charset(), new ArrayList<String>(chunks));
+	}
+
+	/**
+	 * Encode the contents into a byte array, as Latin-1 if every
+	 * character fits in a byte, and otherwise as UTF-8 or UTF-16,
+	 * whichever takes fewer bytes. Mostly ASCII text is smaller as
+	 * UTF-8, while e.g. CJK text takes 3 bytes per character as UTF-8
+	 * but only 2 as UTF-16.
+	 */
+	public synchronized void compact() {
+
+		// Case 0: already compact
+		if (packed != null && chunks.isEmpty()) {
+			return;
+		}
+
+		String text = toString();
+		latin1 = isLatin1(text);
+		wide = !latin1 && (utf8Length(text) > 2L * text.length());
+		packed = text.getBytes(charset());
+		chunks.clear();
+	}
+
+	/**
+	 * @return true iff all of the contents are compacted
+	 */
+	public synchronized boolean isCompact() {
+		return (packed != null && chunks.isEmpty());
+	}
+
+	/**
+	 * Estimate the number of bytes of memory used to hold the contents.
+	 * Strings are counted at one byte per character when every character
+	 * fits in a byte, as the JVM stores such Strings compactly, and at
+	 * two bytes per character otherwise.
+	 *
+	 * @return the estimated memory use of the contents, in bytes
+	 */
+	public synchronized long memoryUsage() {
+
+		long usage = OBJECT_SIZE + ARRAY_SIZE + (long) chunks.size() * REFERENCE_SIZE;
+		if (packed != null) {
+			usage += ARRAY_SIZE + packed.length;
+		}
+		for (String chunk : chunks) {
+			usage += STRING_SIZE + (isLatin1(chunk) ? chunk.length() : 2L * chunk.length());
+		}
+
+		return usage;
+	}
+
+	/**
+	 * Join the chunks into a single String. The joined String
+	 * replaces the chunks, so later calls do not join again.
+	 *
+	 * @return the whole contents
+	 */
+	public synchronized String toString() {
+
+		// Case 0: nothing to join
+		if (packed == null && chunks.size() == 0) {
+			return "";
+		}
+
+		// Case 1: compacted, decode without keeping the decoded text
+		if (packed != null) {
+			StringBuilder joined = new StringBuilder(length);
+			joined.append(unpack());
+			for (String chunk : chunks) {
+				joined.append(chunk);
+			}
+			return joined.toString();
+		}
+
+		// Case 2: join the chunks and keep the result
+		if (chunks.size() > 1) {
+			StringBuilder joined = new StringBuilder(length);
+			for (String chunk : chunks) {
+				joined.append(chunk);
+			}
+			chunks.clear();
+			chunks.add(joined.toString());
+		}
+
+		return chunks.get(0);
+	}
+
+	/**
+	 * @return the compacted text, decoded
+	 */
+	private String unpack() {
+		return new String(packed, charset());
+	}
+
+	/**
+	 * @return the encoding of the compacted text
+	 */
+	private Charset charset() {
+		if (latin1) {
+			return StandardCharsets.ISO_8859_1;
+		}
+		return wide ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * @param text the text to measure
+	 * @return the number of bytes text takes encoded as UTF-8
+	 */
+	private static long utf8Length(String text) {
+		long bytes = 0;
+		int size = text.length();
+		for (int i = 0; i < size; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				bytes += 1;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isSurrogate(c)) {
+				bytes += 2;		// a surrogate pair takes 4 bytes
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * @param text the text to check
+	 * @return true iff every character of text fits in a single byte
+	 */
+	private static boolean isLatin1(String text) {
+		int size = text.length();
+		for (int i = 0; i < size; i++) {
+			if (text.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Iterator over the compacted text of contents, decoded a piece at a
+	 * time, followed by their chunks
+	 */
+	private static class Pieces implements Iterator<String> {
+
+		private ByteBuffer packed;
+		private CharsetDecoder decoder;
+		private CharBuffer decoded;
+		private Iterator<String> chunks;
+
+		public Pieces(byte[] packed, Charset charset, ArrayList<String> chunks) {
+			if (packed != null && packed.length > 0) {
+				this.packed = ByteBuffer.wrap(packed);
+
+				// Replace bad input, as new String(bytes, charset) does
+				decoder = charset.newDecoder()
+						.onMalformedInput(CodingErrorAction.REPLACE)
+						.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				decoded = CharBuffer.allocate(Math.min(PIECE_SIZE, packed.length));
+			}
+			this.chunks = chunks.iterator();
+		}
+
+		public boolean hasNext() {
+			return (packed != null || chunks.hasNext());
+		}
+
+		public String next() {
+			if (packed == null) {
+				return chunks.next();
+			}
+
+			// Decode up to a piece of the compacted text, and once all of
+			// it is decoded, what the decoder still holds back
+			decoded.clear();
+			decoder.decode(packed, decoded, true);
+			if (!packed.hasRemaining() && decoder.flush(decoded).isUnderflow()) {
+				packed = null;
+			}
+			decoded.flip();
+			return decoded.toString();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	/**
+	 * Iterator over the lines of pieces of text, where a line may
+	 * span several pieces
+	 */
+	private static class LineIterator implements Iterator<String> {
+
+		private Iterator<String> pieces;
+		private String current;
+		private int offset;
+		private boolean done;
+
+		// Empty lines read but not returned yet, and the non-empty
+		// line that follows them
+		private int emptyLines;
+		private String nextLine;
+
+		public LineIterator(Iterator<String> pieces) {
+			this.pieces = pieces;
+
+			// Empty contents consist of one empty line
+			if (!pieces.hasNext()) {
+				emptyLines = 1;
+				done = true;
+			} else {
+				fill();
+			}
+		}
+
+		public boolean hasNext() {
+			return (emptyLines > 0 || nextLine != null);
+		}
+
+		public String next() {
+
+			if (emptyLines > 0) {
+				emptyLines--;
+				return "";
+			}
+
+			if (nextLine == null) {
+				throw new NoSuchElementException();
+			}
+
+			String line = nextLine;
+			nextLine = null;
+			fill();
+			return line;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Read ahead up to the next non-empty line. Empty lines which
+		 * are not followed by a non-empty line are dropped.
+		 */
+		private void fill() {
+
+			String line = readLine();
+			while (line != null) {
+				if (line.length() > 0) {
+					nextLine = line;
+					return;
+				}
+				emptyLines++;
+				line = readLine();
+			}
+
+			// Trailing empty lines
+			emptyLines = 0;
+		}
+
+		/**
+		 * Read the text up to the next line break, across pieces
+		 * @return the line, or null at the end of the contents
+		 */
+		private String readLine() {
+
+			if (done) {
+				return null;
+			}
+
+			StringBuilder spanning = null;
+			while (current != null || pieces.hasNext()) {
+				if (current == null) {
+					current = pieces.next();
+					offset = 0;
+				}
+				int end = current.indexOf('\n', offset);
+
+				// Line ends within this chunk
+				if (end != -1) {
+					String piece = current.substring(offset, end);
+					offset = end + 1;
+					if (spanning == null) {
+						return piece;
+					}
+					return spanning.append(piece).toString();
+				}
+
+				// Line continues into the next piece
+				if (spanning == null) {
+					spanning = new StringBuilder();
+				}
+				spanning.append(current, offset, current.length());
+				current = null;
+			}
+
+			// Last line, after the last line break
+			done = true;
+			return (spanning == null) ? "" : spanning.toString();
+		}
+
+	}
+
+}
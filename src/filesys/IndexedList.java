@@ -0,0 +1,277 @@
+package src.filesys;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.io.Serializable;
+
+/**
+ * A ShellList for large directories. Files are kept in a hash index
+ * keyed by their exact name for constant time lookups, and in a red-black
+ * tree ordered case-insensitively for logarithmic sorted insertion.
+ *
+ * Names which differ only in case are ordered by their case-sensitive
+ * comparison, so that the ordering is total.
+ */
+public class IndexedList implements ShellList, Iterable<ShellFile> {
+
+	private HashMap<String, ShellFile> index;
+	private TreeMap<String, ShellFile> order;
+
+	private static final String FILE_EXISTS = "Cannot add file: File already exists";
+	static final long serialVersionUID = 42L;
+
+	/**
+	 * Constructor for IndexedList
+	 * Creates a new empty indexed list of length 0
+	 */
+	public IndexedList() {
+		index = new HashMap<String, ShellFile>();
+		order = new TreeMap<String, ShellFile>(new NameOrder());
+	}
+
+	/**
+	 * Search for a file with specific name
+	 * @param fileName the name of the file to be looked up
+	 * @return a ShellFile with name fileName, null if no such file exists
+	 */
+	public ShellFile getFile(String fileName) {
+		return index.get(fileName);
+	}
+
+	/**
+	 * Add a ShellFile to the filelist
+	 * @param addMe the ShellFile to add to the list kept by this IndexedList
+	 * @exception IndexedListExistsException if a file or directory by the same name already exists
+	 */
+	public void addFile(ShellFile addMe) throws IndexedListExistsException {
+
+		String addName = addMe.getName();
+		if (hasFile(addName)) {
+			throw new IndexedListExistsException(FILE_EXISTS);
+		}
+
+		index.put(addName, addMe);
+		order.put(addName, addMe);
+	}
+
+	/**
+	 * Remove a ShellFile from the filelist
+	 * @param fileName remove the ShellFile with name fileName from the list
+	 * if such a ShellFile does not exist, do nothing
+	 */
+	public void removeFile(String fileName) {
+
+		ShellFile file = index.remove(fileName);
+
+		// If file has been found
+		if (file != null) {
+			order.remove(fileName);
+
+			// Reset the file's parent folder to null
+			file.setParent(null);
+		}
+
+	}
+
+	/**
+	 * True iff there exists a file or directory with name fileName
+	 *
+	 * @param fileName the name to check whether a directory or file in the list
+	 * has as its name
+	 * @return boolean true iff there exists a file or directory with name fileName
+	 */
+	public boolean hasFile(String fileName) {
+		return index.containsKey(fileName);
+	}
+
+	/**
+	 * Fetch the first file in the sorted order of the list
+	 *
+	 * @return the first ShellFile, or null if the list is empty
+	 */
+	public ShellFile getFirst() {
+		if (order.isEmpty()) {
+			return null;
+		}
+		return order.get(order.firstKey());
+	}
+
+	/**
+	 * Fetch the file that follows the name fileName in the sorted
+	 * order of the list. fileName does not need to be in the list,
+	 * so a cursor may safely remove the file it is positioned at.
+	 *
+	 * @param fileName the name to find the successor of
+	 * @return the following ShellFile, or null if there is none
+	 */
+	public ShellFile getNext(String fileName) {
+		String nextName = order.higherKey(fileName);
+		if (nextName == null) {
+			return null;
+		}
+		return order.get(nextName);
+	}
+
+	public ListIterator<ShellFile> iterator() {
+		return this.listIterator();
+	}
+
+	/**
+	 * The list iterator, which iterates over ShellFiles (files and directories)
+	 * The iterator walks the list in place without copying it, and reflects
+	 * files added or removed while it is in use.
+	 *
+	 * @return Iterator that iterates over the lexicographically
+	 * sorted list of ShellFiles
+	 */
+	public ListIterator<ShellFile> listIterator() {
+		return new Cursor();
+	}
+
+	public boolean isEmpty() {
+		return index.isEmpty();
+	}
+
+	/**
+	 * Return an int of the number of items (files or directories)
+	 * in the list
+	 *
+	 * @return the length of the list
+	 */
+	public int length() {
+		return index.size();
+	}
+
+	/**
+	 * A live cursor over the list, positioned just after the name
+	 * position, that moves by tree lookups instead of keeping a copy
+	 * of the list. Since it only remembers a name, files may be added
+	 * or removed while the cursor is in use.
+	 */
+	private class Cursor implements ListIterator<ShellFile> {
+
+		private String position;
+		private String lastName;
+		private int index;
+
+		public void add(ShellFile file) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean hasNext() {
+			return (successor() != null);
+		}
+
+		public boolean hasPrevious() {
+			return (predecessor() != null);
+		}
+
+		public ShellFile next() {
+			String nextName = successor();
+			if (nextName == null) {
+				throw new NoSuchElementException();
+			}
+
+			position = nextName;
+			lastName = nextName;
+			index++;
+
+			return order.get(nextName);
+		}
+
+		public int nextIndex() {
+			return index;
+		}
+
+		public ShellFile previous() {
+			String previousName = predecessor();
+			if (previousName == null) {
+				throw new NoSuchElementException();
+			}
+
+			position = order.lowerKey(previousName);
+			lastName = previousName;
+			index--;
+
+			return order.get(previousName);
+		}
+
+		public int previousIndex() {
+			return (index - 1);
+		}
+
+		public void remove() {
+			if (lastName == null) {
+				throw new IllegalStateException();
+			}
+
+			// The position is a name, so it stays valid after removal
+			if (lastName.equals(position)) {
+				index--;
+			}
+			removeFile(lastName);
+			lastName = null;
+		}
+
+		public void set(ShellFile file) {
+			throw new UnsupportedOperationException();
+		}
+
+		private String successor() {
+			if (position == null) {
+				return order.isEmpty() ? null : order.firstKey();
+			}
+			return order.higherKey(position);
+		}
+
+		private String predecessor() {
+			if (position == null) {
+				return null;
+			}
+			return order.floorKey(position);
+		}
+
+	}
+
+}
+
+/**
+ * Case-insensitive ordering of file names, falling back to the
+ * case-sensitive ordering for names that only differ in case
+ */
+class NameOrder implements Comparator<String>, Serializable {
+
+	static final long serialVersionUID = 42L;
+
+	public int compare(String first, String second) {
+		int result = first.compareToIgnoreCase(second);
+		if (result == 0) {
+			result = first.compareTo(second);
+		}
+		return result;
+	}
+
+}
+
+class IndexedListException extends ShellListException {
+
+	static final long serialVersionUID = 42L;
+
+	public IndexedListException(String message) {
+		super(message);
+	}
+
+}
+
+class IndexedListExistsException extends IndexedListException {
+
+	static final long serialVersionUID = 42L;
+
+	public IndexedListExistsException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,159 @@
+package src.filesys;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An index from the names of the files and directories in a tree to the
+ * objects with those names, sorted by name so that every name starting
+ * with a prefix can be found without walking the tree.
+ *
+ * Shortcuts are kept apart, since a search through a shortcut finds its
+ * target under a path which is not the target's own.
+ *
+ * The index is kept by the root directory of a tree, and is updated as
+ * files in the tree are added, removed or renamed.
+ */
+public class NameIndex implements Serializable {
+
+	static final long serialVersionUID = 42L;
+
+	private TreeMap<String, HashSet<ShellFile>> names;
+	private HashSet<ShellFile> shortcuts;
+	private int size;
+
+	/**
+	 * Constructor for NameIndex
+	 * Creates a new empty index
+	 */
+	public NameIndex() {
+		names = new TreeMap<String, HashSet<ShellFile>>();
+		shortcuts = new HashSet<ShellFile>();
+		size = 0;
+	}
+
+	/**
+	 * Add file to the index, and every file under it
+	 * if it is a directory
+	 *
+	 * @param file the file or directory to add
+	 */
+	public synchronized void addTree(ShellFile file) {
+		add(file);
+		if (file.isDirectory()) {
+			for (ShellFile child : new TreeWalker((Directory) file)) {
+				add(child);
+			}
+		}
+	}
+
+	/**
+	 * Remove file from the index, and every file under it
+	 * if it is a directory
+	 *
+	 * @param file the file or directory to remove
+	 */
+	public synchronized void removeTree(ShellFile file) {
+		remove(file, file.getName());
+		if (file.isDirectory()) {
+			for (ShellFile child : new TreeWalker((Directory) file)) {
+				remove(child, child.getName());
+			}
+		}
+	}
+
+	/**
+	 * Move file to its new name in the index
+	 *
+	 * @param file the file or directory which was renamed
+	 * @param oldName the name file had before
+	 */
+	public synchronized void rename(ShellFile file, String oldName) {
+		if (remove(file, oldName)) {
+			add(file);
+		}
+	}
+
+	/**
+	 * Find the files and directories whose names start with prefix
+	 *
+	 * @param prefix the start of the names to find
+	 * @return every indexed file or directory named with prefix, not
+	 * including shortcuts
+	 */
+	public synchronized Set<ShellFile> withPrefix(String prefix) {
+		HashSet<ShellFile> result = new HashSet<ShellFile>();
+		for (Map.Entry<String, HashSet<ShellFile>> entry : names.tailMap(prefix).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) {
+				break;
+			}
+			result.addAll(entry.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * @return every shortcut in the tree
+	 */
+	public synchronized Set<ShellFile> getShortcuts() {
+		return new HashSet<ShellFile>(shortcuts);
+	}
+
+	/**
+	 * @return the number of files, directories and shortcuts in the index
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Add a single file, directory or shortcut to the index
+	 * @param file the object to add
+	 */
+	private void add(ShellFile file) {
+		boolean added;
+		if (file.isShortCut()) {
+			added = shortcuts.add(file);
+		} else {
+			HashSet<ShellFile> files = names.get(file.getName());
+			if (files == null) {
+				files = new HashSet<ShellFile>();
+				names.put(file.getName(), files);
+			}
+			added = files.add(file);
+		}
+
+		if (added) {
+			size++;
+		}
+	}
+
+	/**
+	 * Remove a single file, directory or shortcut from the index
+	 *
+	 * @param file the object to remove
+	 * @param name the name file is indexed under
+	 * @return true iff file was in the index
+	 */
+	private boolean remove(ShellFile file, String name) {
+		boolean removed;
+		if (file.isShortCut()) {
+			removed = shortcuts.remove(file);
+		} else {
+			HashSet<ShellFile> files = names.get(name);
+			removed = (files != null && files.remove(file));
+			if (files != null && files.isEmpty()) {
+				names.remove(name);
+			}
+		}
+
+		if (removed) {
+			size--;
+		}
+		return removed;
+	}
+
+}
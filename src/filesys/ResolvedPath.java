@@ -0,0 +1,40 @@
+package src.filesys;
+
+/**
+ * The result of resolving a path: the file or directory object the
+ * path represents, together with its canonical absolute path.
+ * The canonical path is only built when it is asked for.
+ */
+public class ResolvedPath {
+
+	private ShellFile file;
+	private String path;
+
+	/**
+	 * Constructor for ResolvedPath
+	 *
+	 * @param file the file or directory object the path represents
+	 */
+	public ResolvedPath(ShellFile file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the file or directory object the path represents
+	 */
+	public ShellFile getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the canonical absolute path, without "." or ".." and
+	 * with shortcuts replaced by the path of their targets
+	 */
+	public String getPath() {
+		if (path == null) {
+			path = file.getPath();
+		}
+		return path;
+	}
+
+}
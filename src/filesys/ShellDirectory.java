@@ -1,7 +1,16 @@
 package src.filesys;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.ListIterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import src.shell.JShellException;
 
 public class ShellDirectory extends ShellFile implements Directory, Iterable<ShellFile> {
 
@@ -9,7 +18,33 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	public static final String spacing = "\n";
 	public static final long serialVersionUID = 42L;
 
-	private ShellList files;
+	// Saved by the root of the tree as a flat list, see writeObject
+	private transient ShellList files;
+	
+	// While this directory is a lazy copy, the directory it copies.
+	// Its files are only copied from there when they are first needed.
+	private volatile ShellDirectory source;
+	
+	// Lazy copies of this directory which have not taken its files yet
+	private ArrayList<ShellDirectory> copies;
+	
+	// Kept by the root: at least the number of lazy copies of directories
+	// in the tree which have not taken their files yet, so that changes
+	// need not look for them above the changed directory while it is 0
+	private volatile int pendingCopies;
+	
+	// Cached roots are only valid in the epoch they were found in
+	private static volatile long rootEpoch = 0;
+	private transient CachedRoot cachedRoot;
+	
+	// Indexes of the contents and names of the files in the tree,
+	// kept by the root
+	private ContentIndex contentIndex;
+	private NameIndex nameIndex;
+	
+	// Lets commands from shells sharing the tree take turns, kept by the
+	// root and created when first needed, also after loading a saved tree
+	private transient ReentrantReadWriteLock treeLock;
 
 	public ShellDirectory() {
 		this(DEFAULT_NAME);
@@ -46,7 +81,7 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 		// Main setup for directory
 		this.name = newName;
 		this.parentDir = parent;
-		this.files = new SortedList();
+		this.files = new IndexedList();
 		
 	}
 	
@@ -72,20 +107,145 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	 * @param parent the directory to set as the parent of this directory
 	 */
 	public void setParent(Directory parent) {
+		ShellDirectory oldRoot = (ShellDirectory) getRoot();
+		int carried = oldRoot.pendingCopies;
+		
 		parentDir = parent;
+		invalidatePath();
+		invalidateRoot();
+		DirectoryNavigator.invalidateCache();
+		
+		// The lazy copies pending in this directory move with it. Their
+		// number is not known, so the count of the whole old tree is taken.
+		ShellDirectory newRoot = (ShellDirectory) getRoot();
+		if (newRoot == this) {
+			pendingCopies = carried;
+		} else if (newRoot != oldRoot) {
+			countCopies(newRoot, carried);
+		}
 	}
 	
 	public Directory getRoot() {
 		
-		// Perform a recursive call to find root directory
-		if (parentDir == null) {
-			return this;
-		} else {
-			return parentDir.getRoot();
+		// Use the root cached by an earlier call
+		CachedRoot cached = cachedRoot;
+		if (cached != null && cached.epoch == rootEpoch) {
+			return cached.root;
+		}
+		
+		// Follow parents up to the root directory, or to a directory
+		// with a cached root
+		long epoch = rootEpoch;
+		ShellDirectory current = this;
+		ShellDirectory root = null;
+		while (root == null) {
+			cached = current.cachedRoot;
+			if (cached != null && cached.epoch == epoch) {
+				root = cached.root;
+			} else if (current.parentDir == null) {
+				root = current;
+			} else {
+				current = (ShellDirectory) current.parentDir;
+			}
 		}
+		cachedRoot = new CachedRoot(root, epoch);
+		return root;
 
 	}
+	
+	/**
+	 * Forget the cached root of this directory after it was moved. The
+	 * roots of the directories in it change too, so unless the directory
+	 * is empty all cached roots are forgotten.
+	 */
+	private void invalidateRoot() {
+		// A lazy copy has no files yet, so none have cached roots
+		if (files == null || source != null || files.length() == 0) {
+			cachedRoot = null;
+		} else {
+			invalidateAllRoots();
+		}
+	}
+	
+	private static synchronized void invalidateAllRoots() {
+		rootEpoch++;
+	}
+	
+	/**
+	 * Change the count of lazy copies pending in a tree
+	 * 
+	 * @param root the root of the tree
+	 * @param change the number of copies made, or minus the number filled
+	 */
+	private static void countCopies(ShellDirectory root, int change) {
+		synchronized (root) {
+			root.pendingCopies += change;
+		}
+	}
 
+	/**
+	 * Get the index of the contents of the tree this directory is in
+	 *
+	 * @return the index kept by the root directory, or null if the
+	 * tree is not indexed
+	 */
+	public ContentIndex getContentIndex() {
+		return ((ShellDirectory) getRoot()).contentIndex;
+	}
+	
+	/**
+	 * Set the index of the contents of the tree this directory is the
+	 * root of. The index is built from the files already in the tree.
+	 *
+	 * @param index the new index, or null to stop indexing the tree
+	 */
+	public void setContentIndex(ContentIndex index) {
+		contentIndex = index;
+		if (index != null) {
+			index.addTree(this);
+		}
+	}
+	
+	/**
+	 * Get the lock of the tree this directory is in. Commands which only
+	 * read the tree hold the read lock, and others the write lock, so
+	 * that shells sharing a tree can run at the same time.
+	 *
+	 * @return the lock kept by the root directory
+	 */
+	public ReadWriteLock getTreeLock() {
+		ShellDirectory root = (ShellDirectory) getRoot();
+		synchronized (root) {
+			if (root.treeLock == null) {
+				root.treeLock = new ReentrantReadWriteLock();
+			}
+			return root.treeLock;
+		}
+	}
+	
+	/**
+	 * Get the index of the names in the tree this directory is in
+	 *
+	 * @return the index kept by the root directory, or null if the
+	 * tree is not indexed
+	 */
+	public NameIndex getNameIndex() {
+		return ((ShellDirectory) getRoot()).nameIndex;
+	}
+	
+	/**
+	 * Set the index of the names in the tree this directory is the
+	 * root of. The index is built from the files already in the tree.
+	 *
+	 * @param index the new index, or null to stop indexing the tree
+	 */
+	public void setNameIndex(NameIndex index) {
+		nameIndex = index;
+		if (index != null) {
+			index.addTree(this);
+		}
+	}
+	
 	public String getName() {
 		return name;
 	}
@@ -97,7 +257,16 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	 */
 	public void setName(String name) {
 		if (name.length() > 0) {
+			prepareChange();
+			String oldName = this.name;
 			this.name = name;
+			invalidatePath();
+			DirectoryNavigator.invalidateCache();
+			
+			NameIndex index = getNameIndex();
+			if (index != null) {
+				index.rename(this, oldName);
+			}
 		}
 	}
 	
@@ -106,27 +275,65 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 		// If there is no parent, return "/"
 		if (parentDir == null) {
 			return "/";
+		}
+		
+		// Use the path cached by an earlier call
+		String path = getCachedPath();
+		if (path != null) {
+			return path;
+		}
 
-		// If there is a parent, return "parentAddress/thisDir";
-		// this is a recursive call, such that the result is the entire address
-		} else {
-
-			String parentName = parentDir.getPath();
-
-			if (parentName == "/") {
-				return parentName + name;
-			} else {
-				return parentName + "/" + name;
+		// Go up to the root, or to a directory with a cached path,
+		// without recursing, so that trees of any depth are handled
+		ArrayList<ShellDirectory> below = new ArrayList<ShellDirectory>();
+		ShellDirectory current = this;
+		String base = "";
+		while (current.parentDir != null) {
+			String cached = current.getCachedPath();
+			if (cached != null) {
+				base = cached;
+				break;
 			}
+			below.add(current);
+			current = (ShellDirectory) current.parentDir;
+		}
 
+		// Then come back down, adding "/thisDir" for each directory,
+		// and cache the paths which are short enough to keep
+		StringBuilder builder = new StringBuilder(base);
+		for (int i = below.size() - 1; i >= 0; i--) {
+			ShellDirectory dir = below.get(i);
+			builder.append('/').append(dir.name);
+			if (i == 0) {
+				path = builder.toString();
+				dir.setCachedPath(path);
+			} else if (builder.length() <= PATH_CACHE_LIMIT) {
+				dir.setCachedPath(builder.toString());
+			}
 		}
+		
+		return path;
 
 	}
 	
+	/**
+	 * Forget the cached path of this directory after it was renamed
+	 * or moved. The paths of the files in it change too, so unless
+	 * the directory is empty all cached paths are forgotten.
+	 */
+	protected void invalidatePath() {
+		// A lazy copy has no files yet, so none have cached paths
+		if (files == null || source != null || files.length() == 0) {
+			super.invalidatePath();
+		} else {
+			invalidateAllPaths();
+		}
+	}
+	
 	public String toString() {
 
 		String result = new String();
-		Iterator iterator = files.iterator();
+		Iterator iterator = getFiles().iterator();
 		ShellFile inspect;
 		
 		// Accumulate the file names into the result
@@ -147,7 +354,7 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	public String[] toStringArray() {
 		
 		String[] result = new String[length()];
-		Iterator iterator = files.iterator();
+		Iterator iterator = getFiles().iterator();
 		ShellFile inspect;
 		int length = length();
 		
@@ -168,12 +375,40 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	 * @return a ShellFile with name fileName, or null if no such file exists in directory
 	 */
 	public ShellFile getFile(String fileName) {
-		return files.getFile(fileName);
+		return getFiles().getFile(fileName);
 	}
 	
+	/**
+	 * Iterate over the files of this directory in sorted order.
+	 * The iterator is live: it does not copy the file list, and
+	 * reflects files added or removed while it is in use.
+	 *
+	 * @return an iterator over the files of this directory
+	 */
 	@SuppressWarnings("unchecked")
 	public Iterator<ShellFile> iterator() {
-		return files.iterator();
+		return getFiles().iterator();
+	}
+	
+	/**
+	 * Get the first file of this directory in sorted order
+	 *
+	 * @return the first file, or null if the directory is empty
+	 */
+	public ShellFile firstFile() {
+		return getFiles().getFirst();
+	}
+	
+	/**
+	 * Get the file that follows current in sorted order. current may
+	 * have been removed from this directory since it was fetched, which
+	 * allows the directory to be modified during traversal.
+	 *
+	 * @param current the file to find the successor of
+	 * @return the following file, or null if current is the last file
+	 */
+	public ShellFile nextFile(ShellFile current) {
+		return getFiles().getNext(current.getName());
 	}
 	
 	/**
@@ -182,12 +417,24 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	 * @param fileAdd the file to add to this directory
 	 * @exception ShellDirectoryException thrown if file or diretory with
 	 * identical name to fileAdd already exists, or any other unexpected
-	 * exception is thrown from the SortedList file list
+	 * exception is thrown from the file list
 	 */
 	public void addFile(ShellFile fileAdd) throws DirectoryException {
 		try {
+			detachCopies();
 			fileAdd.setParent(this); //Need for copy
-			files.addFile(fileAdd);
+			getFiles().addFile(fileAdd);
+			DirectoryNavigator.invalidateCache();
+			touch();
+			
+			ContentIndex index = getContentIndex();
+			if (index != null) {
+				index.addTree(fileAdd);
+			}
+			NameIndex names = getNameIndex();
+			if (names != null) {
+				names.addTree(fileAdd);
+			}
 		} catch (ShellListException e) {
 			String message = e.getMessage();
 			throw new DirectoryException(message);
@@ -195,11 +442,263 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	}
 	
 	public void removeFile(String fileName) {
-		files.removeFile(fileName);
+		detachCopies();
+		ShellFile removed = getFiles().getFile(fileName);
+		getFiles().removeFile(fileName);
+		DirectoryNavigator.invalidateCache();
+		if (removed != null) {
+			touch();
+		}
+		
+		ContentIndex index = getContentIndex();
+		if (index != null && removed != null) {
+			index.removeTree(removed);
+		}
+		NameIndex names = getNameIndex();
+		if (names != null && removed != null) {
+			names.removeTree(removed);
+		}
+	}
+	
+	/**
+	 * Create a lazy copy of this directory, not in any directory. The
+	 * copy takes its files from this directory only when they are first
+	 * needed, or when this directory is about to change, so copying
+	 * a directory takes constant time however large it is. Files are
+	 * copied without copying their text.
+	 * 
+	 * @return the copy
+	 */
+	public ShellFile copy() {
+		ShellDirectory clone = new ShellDirectory(name);
+		clone.source = this;
+		synchronized (this) {
+			if (copies == null) {
+				copies = new ArrayList<ShellDirectory>();
+			}
+			copies.add(clone);
+		}
+		countCopies((ShellDirectory) getRoot(), 1);
+		return clone;
+	}
+	
+	/**
+	 * Get the files of this directory, first copying them from the
+	 * directory this is a lazy copy of if that has not been done yet
+	 * 
+	 * @return the list of files of this directory
+	 */
+	private ShellList getFiles() {
+		if (source != null) {
+			copySource();
+		}
+		return files;
+	}
+	
+	/**
+	 * Fill this lazy copy with copies of the files of the directory it
+	 * copies. Directories in it are copied lazily in turn.
+	 */
+	private synchronized void copySource() {
+		ShellDirectory original = source;
+		if (original == null) {
+			return;
+		}
+		
+		for (ShellFile item : original) {
+			ShellFile clone = item.copy();
+			
+			// The copy is new, so no cached paths need to be invalidated
+			clone.parentDir = this;
+			try {
+				files.addFile(clone);
+			} catch (JShellException e) {
+				// Names in original are unique
+			}
+		}
+		
+		boolean pending;
+		synchronized (original) {
+			pending = (original.copies != null && original.copies.remove(this));
+		}
+		if (pending) {
+			countCopies((ShellDirectory) original.getRoot(), -1);
+		}
+		source = null;
+	}
+	
+	/**
+	 * Let lazy copies of this directory, and of every directory above
+	 * it, take their files before the files of this directory change.
+	 * Copies are filled from the root down, since filling a copy of a
+	 * directory creates lazy copies of the directories in it.
+	 */
+	void detachCopies() {
+		
+		// Nothing to do unless the tree has lazy copies pending
+		ShellDirectory root = (ShellDirectory) getRoot();
+		if (root.pendingCopies == 0) {
+			return;
+		}
+		
+		// Collect this directory and the directories above it
+		ArrayList<ShellDirectory> path = new ArrayList<ShellDirectory>();
+		ShellDirectory current = this;
+		while (current != null) {
+			path.add(current);
+			current = (ShellDirectory) current.parentDir;
+		}
+		
+		for (int i = path.size() - 1; i >= 0; i--) {
+			ShellDirectory dir = path.get(i);
+			ArrayList<ShellDirectory> pending;
+			synchronized (dir) {
+				pending = dir.copies;
+				dir.copies = null;
+			}
+			if (pending != null) {
+				countCopies(root, -pending.size());
+				for (ShellDirectory copy : pending) {
+					copy.copySource();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Save this directory without recursing into the tree, which may be
+	 * deeper than the call stack can go. The root saves the files of the
+	 * whole tree as a flat list, directory by directory, and any other
+	 * directory saves the root so that the tree is saved with it.
+	 *
+	 * @param out the stream to save to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		
+		// Case 0: not the root, the tree is saved with the root
+		out.writeBoolean(parentDir == null);
+		if (parentDir != null) {
+			out.writeObject(getRoot());
+			return;
+		}
+		
+		// Case 1: the root, save the files of each directory in turn.
+		// Directories already saved are only saved as a reference.
+		ArrayList<ShellDirectory> pending = new ArrayList<ShellDirectory>();
+		pending.add(this);
+		while (!pending.isEmpty()) {
+			ShellDirectory dir = pending.remove(pending.size() - 1);
+			out.writeInt(dir.files.length());
+			Iterator<?> items = dir.files.iterator();
+			while (items.hasNext()) {
+				ShellFile item = (ShellFile) items.next();
+				out.writeObject(item);
+				if (item instanceof ShellDirectory) {
+					pending.add((ShellDirectory) item);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Load a directory saved by writeObject. The root loads the files of
+	 * the whole tree in the order they were saved, and gives each its
+	 * parent.
+	 *
+	 * @param in the stream to load from
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if a saved class cannot be found
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		files = new IndexedList();
+		
+		// Case 0: not the root, the tree is loaded with the root
+		if (!in.readBoolean()) {
+			in.readObject();
+			return;
+		}
+		
+		// Case 1: the root, load the files of each directory in turn
+		ArrayList<ShellDirectory> pending = new ArrayList<ShellDirectory>();
+		pending.add(this);
+		while (!pending.isEmpty()) {
+			ShellDirectory dir = pending.remove(pending.size() - 1);
+			int length = in.readInt();
+			for (int i = 0; i < length; i++) {
+				ShellFile item = (ShellFile) in.readObject();
+				item.parentDir = dir;
+				try {
+					dir.files.addFile(item);
+				} catch (JShellException e) {
+					throw new InvalidObjectException(e.getMessage());
+				}
+				if (item instanceof ShellDirectory) {
+					pending.add((ShellDirectory) item);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Move a file or directory from this directory into dest. The same
+	 * object is moved, so nothing under it is copied, and indexes of the
+	 * tree are left as they are when dest is in the same tree.
+	 *
+	 * @param fileName the name of the file to move
+	 * @param dest the directory to move it into
+	 * @exception DirectoryException thrown if no file named fileName is
+	 * in this directory, or dest already has a file with the same name
+	 */
+	public void moveFile(String fileName, ShellDirectory dest) throws DirectoryException {
+		ShellFile moved = getFile(fileName);
+		if (moved == null) {
+			throw new DirectoryException(String.format(
+					"Error: %s - No such file or directory exists", fileName));
+		}
+		if (dest.hasFile(moved.getName())) {
+			throw new DirectoryException(String.format(
+					"Error: A file with name %s already exists", moved.getName()));
+		}
+		
+		// The indexes only change if the file leaves the tree
+		boolean sameTree = (getRoot() == dest.getRoot());
+		ContentIndex oldIndex = getContentIndex();
+		NameIndex oldNames = getNameIndex();
+		if (!sameTree && oldIndex != null) {
+			oldIndex.removeTree(moved);
+		}
+		if (!sameTree && oldNames != null) {
+			oldNames.removeTree(moved);
+		}
+		
+		detachCopies();
+		dest.detachCopies();
+		getFiles().removeFile(fileName);
+		moved.setParent(dest);
+		try {
+			dest.getFiles().addFile(moved);
+		} catch (JShellException e) {
+			throw new DirectoryException(e.getMessage());
+		}
+		DirectoryNavigator.invalidateCache();
+		touch();
+		dest.touch();
+		
+		ContentIndex newIndex = dest.getContentIndex();
+		NameIndex newNames = dest.getNameIndex();
+		if (!sameTree && newIndex != null) {
+			newIndex.addTree(moved);
+		}
+		if (!sameTree && newNames != null) {
+			newNames.addTree(moved);
+		}
 	}
 	
 	public boolean hasFile(String fileName) {
-		return files.hasFile(fileName);
+		return getFiles().hasFile(fileName);
 	}
 	
 	/**
@@ -208,7 +707,7 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	 * @param difAdd the directory to add to this directory
 	 * @exception ShellDirectoryException thrown if file or diretory with
 	 * identical name to dirAdd already exists, or any other unexpected
-	 * exception is thrown from the SortedList file list
+	 * exception is thrown from the file list
 	 */
 	public void addDirectory(Directory dirAdd) throws DirectoryException {
 		// dirAdd needs to know this directory is its parent
@@ -230,7 +729,7 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 	}
 	
 	public int length() {
-		return files.length();
+		return getFiles().length();
 	}
 
 	public boolean isEmpty() {
@@ -259,3 +758,18 @@ public class ShellDirectory extends ShellFile implements Directory, Iterable<She
 		return "directory";
 	}
 }
+
+/**
+ * A root cached by a ShellDirectory, with the epoch it was found in
+ */
+class CachedRoot {
+	
+	final ShellDirectory root;
+	final long epoch;
+	
+	CachedRoot(ShellDirectory root, long epoch) {
+		this.root = root;
+		this.epoch = epoch;
+	}
+	
+}
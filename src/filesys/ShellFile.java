@@ -9,23 +9,46 @@ public class ShellFile implements Serializable {
 
 	private static final String DEFAULT_NAME = "New_File";
 	static final long serialVersionUID = 42L;
+	
+	// Longest path that is kept in the path cache
+	static final int PATH_CACHE_LIMIT = 4096;
+	
+	// Cached paths are only valid in the epoch they were computed in
+	private static volatile long pathEpoch = 0;
+	
+	// Last time given to a changed file, so that later changes get later times
+	private static long lastTimestamp = 0;
 
 	protected String name;
-	private String contents;
-	protected Directory parentDir;
+	private FileContents contents;
+	// Given back by the directory holding this file when it is loaded
+	protected transient Directory parentDir;
 	protected ArrayList<ShellShortcut> shortcuts;
+	private long lastModified;
+	private transient CachedPath cachedPath;
 	
 	public ShellFile() {
 		this(DEFAULT_NAME);
 	}
 
 	public ShellFile(String name) {
-		this.contents = new String();
+		this.contents = new FileContents();
 		this.name = name;
 		this.shortcuts = new ArrayList<ShellShortcut>();
+		touch();
 	}
 
 	public String toString() {
+		return contents.toString();
+	}
+	
+	/**
+	 * Get the contents of this file, to be read without joining
+	 * them into a single String
+	 * 
+	 * @return the contents of this file
+	 */
+	public FileContents getContents() {
 		return contents;
 	}
 	
@@ -35,7 +58,15 @@ public class ShellFile implements Serializable {
 
 	public void setName(String name)
 	{
+		prepareChange();
+		String oldName = this.name;
 		this.name = name;
+		invalidatePath();
+		DirectoryNavigator.invalidateCache();
+		
+		NameIndex index = getNameIndex();
+		if (index != null)
+			index.rename(this, oldName);
 	}
 	
 	public boolean isDirectory() 
@@ -55,6 +86,8 @@ public class ShellFile implements Serializable {
 	public void setParent(Directory parent)
 	{
 		parentDir = parent;
+		invalidatePath();
+		DirectoryNavigator.invalidateCache();
 	}
 
 	public void addShortcut(ShellShortcut addMe) {
@@ -62,8 +95,10 @@ public class ShellFile implements Serializable {
 	}
 
 	public void nullifyShortcuts() {
-		for (ShellShortcut shortcut : shortcuts) {
-			shortcut.remove();
+		// Removing a shortcut can give lazy copies of its directory
+		// their own copy of it, which is added to the list and removed too
+		for (int i = 0; i < shortcuts.size(); i++) {
+			shortcuts.get(i).remove();
 		}
 
 		if (shortcuts.size() > 0) {
@@ -77,20 +112,168 @@ public class ShellFile implements Serializable {
 	
 	public String getPath() 
 	{
+		String path = getCachedPath();
+		if (path != null)
+			return path;
+		
 		String parentPath = this.getParent().getPath();
 		
 		if(parentPath.equalsIgnoreCase("/"))
-			return parentPath + this.name;
+			path = parentPath + this.name;
 		else
-			return parentPath + "/" + this.name;
+			path = parentPath + "/" + this.name;
+		
+		setCachedPath(path);
+		return path;
+	}
+	
+	/**
+	 * Get the path cached by the last call to getPath()
+	 * 
+	 * @return the cached path, or null if it is no longer valid
+	 */
+	protected String getCachedPath()
+	{
+		CachedPath cached = cachedPath;
+		if (cached != null && cached.epoch == pathEpoch)
+			return cached.path;
+		return null;
+	}
+	
+	/**
+	 * Cache the path of this file, unless it is too long to be worth
+	 * keeping: in very deep trees caching every path would take memory
+	 * quadratic in the depth
+	 * The path and its epoch are published together, so that threads
+	 * reading paths concurrently never pair a path with the wrong epoch
+	 * 
+	 * @param path the path of this file
+	 */
+	protected void setCachedPath(String path)
+	{
+		if (path.length() <= PATH_CACHE_LIMIT) {
+			cachedPath = new CachedPath(path, pathEpoch);
+		}
+	}
+	
+	/**
+	 * Forget the cached path of this file, after its name or parent changed
+	 */
+	protected void invalidatePath()
+	{
+		cachedPath = null;
+	}
+	
+	/**
+	 * Forget the cached paths of all files, after a directory with
+	 * files in it was renamed or moved
+	 */
+	protected static synchronized void invalidateAllPaths()
+	{
+		pathEpoch++;
 	}
 	
 	public void appendContents(String appendMe) {
-		contents += "\n" + appendMe;
+		prepareChange();
+		contents.append("\n");
+		contents.append(appendMe);
+		touch();
+		
+		ContentIndex index = getContentIndex();
+		if (index != null)
+			index.append(this, appendMe);
 	}
 	
 	public void setContents(String newContents) {
-		contents = newContents;
+		prepareChange();
+		contents.set(newContents);
+		touch();
+		
+		ContentIndex index = getContentIndex();
+		if (index != null)
+			index.update(this);
+	}
+	
+	/**
+	 * Make the contents of this file a copy of the contents of another
+	 * file, without copying the text itself
+	 * 
+	 * @param original the file to copy the contents of
+	 */
+	public void copyContents(ShellFile original) {
+		prepareChange();
+		contents = new FileContents(original.getContents());
+		touch();
+		
+		ContentIndex index = getContentIndex();
+		if (index != null)
+			index.update(this);
+	}
+	
+	/**
+	 * Create a copy of this file, not in any directory, which shares
+	 * the text of its contents with this file
+	 * 
+	 * @return the copy
+	 */
+	public ShellFile copy() {
+		ShellFile clone = new ShellFile(name);
+		clone.copyContents(this);
+		return clone;
+	}
+	
+	/**
+	 * Let lazy copies of the directories this file is in take their
+	 * files from them before this file is changed
+	 */
+	protected void prepareChange() {
+		if (parentDir != null)
+			((ShellDirectory) parentDir).detachCopies();
+	}
+	
+	/**
+	 * Get the time this file was created or last changed, in milliseconds
+	 * since the epoch. Each change is given a later time than the change
+	 * before it, even within the same millisecond.
+	 * 
+	 * @return the time of the last change
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+	
+	/**
+	 * Record that this file has just been changed
+	 */
+	protected void touch() {
+		lastModified = nextTimestamp();
+	}
+	
+	private static synchronized long nextTimestamp() {
+		lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp + 1);
+		return lastTimestamp;
+	}
+	
+	/**
+	 * Get the index of the names in the tree this file is in
+	 * 
+	 * @return the index, or null if the file is not in an indexed tree
+	 */
+	public NameIndex getNameIndex() {
+		if (parentDir == null)
+			return null;
+		return ((ShellDirectory) parentDir).getNameIndex();
+	}
+	
+	/**
+	 * Get the index of the contents of the tree this file is in
+	 * 
+	 * @return the index, or null if the file is not in an indexed tree
+	 */
+	public ContentIndex getContentIndex() {
+		if (parentDir == null)
+			return null;
+		return ((ShellDirectory) parentDir).getContentIndex();
 	}
 	
 	public void remove() {
@@ -104,3 +287,18 @@ public class ShellFile implements Serializable {
 	}
 
 }
+
+/**
+ * A path cached by a ShellFile, with the epoch it was computed in
+ */
+class CachedPath {
+	
+	final String path;
+	final long epoch;
+	
+	CachedPath(String path, long epoch) {
+		this.path = path;
+		this.epoch = epoch;
+	}
+	
+}
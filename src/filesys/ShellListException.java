@@ -0,0 +1,13 @@
+package src.filesys;
+
+import src.shell.JShellException;
+
+class ShellListException extends JShellException {
+
+	static final long serialVersionUID = 42L;
+
+	public ShellListException(String message) {
+		super(message);
+	}
+	
+}
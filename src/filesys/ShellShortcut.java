@@ -11,15 +11,28 @@ public class ShellShortcut extends ShellFile implements Serializable {
 	private String BrokenLinkMessage = "Error: %s - No such %s exists";
 	private boolean isValidLink = true;
 	
+	// The object the target path led to when this shortcut was made,
+	// followed for as long as it stays in the tree, even if it is moved
+	private ShellFile target;
+	
 	public ShellShortcut(String symblicLinkName,String targetPathforLink, JShell shell){
+		this(symblicLinkName, targetPathforLink, shell, shell.getWorkDir());
+	}
+	
+	/**
+	 * Constructor for ShellShortcut, with a relative target path
+	 * resolved from workDir rather than the shell's working directory
+	 */
+	private ShellShortcut(String symblicLinkName, String targetPathforLink, JShell shell, Directory workDir){
 		name = symblicLinkName;
 		targetPath = targetPathforLink;	
-		dir = shell.getWorkDir();
+		dir = workDir;
 		workShell = shell;
 		
 		try {
 			ShellFile file = getTarget(dir);
 			file.addShortcut(this);
+			target = file;
 		} catch (DirectoryException e) {
 			// Catch
 		}
@@ -30,6 +43,11 @@ public class ShellShortcut extends ShellFile implements Serializable {
 			throw new DirectoryException(String.format(BrokenLinkMessage, targetPath, "file or directory"));
 		}
 		
+		// The target may have moved away from its path
+		if (target != null && rootOf(target) == dir.getRoot()) {
+			return target;
+		}
+		
 		try {
 			String TargetPath = getAbsoluteTargetPath();
 			ShellFile targetPath = DirectoryNavigator.getFile(TargetPath, presentWorkingDirectory);
@@ -39,6 +57,16 @@ public class ShellShortcut extends ShellFile implements Serializable {
 		}
 	}
 	
+	/**
+	 * @param file a file or directory
+	 * @return the root of the tree file is in, or null if it is a
+	 * file in no directory
+	 */
+	private static Directory rootOf(ShellFile file) {
+		Directory folder = file.isDirectory() ? (Directory) file : file.getParent();
+		return (folder == null) ? null : folder.getRoot();
+	}
+	
 	protected String getAbsoluteTargetPath() throws DirectoryException {
 		return DirectoryNavigator.getAbsolutePath(targetPath, dir);
 	}
@@ -47,6 +75,17 @@ public class ShellShortcut extends ShellFile implements Serializable {
 		return targetPath;
 	}
 	
+	/**
+	 * Create a shortcut with the same name and target as this one,
+	 * not in any directory. A relative target is resolved from the
+	 * same directory as this shortcut's.
+	 * 
+	 * @return the copy
+	 */
+	public ShellFile copy() {
+		return new ShellShortcut(name, targetPath, workShell, dir);
+	}
+	
 	public JShell getShell() {
 		return workShell;
 	}
@@ -57,6 +96,7 @@ public class ShellShortcut extends ShellFile implements Serializable {
 	
 	public void nullifyLink() {
 		isValidLink = false;
+		DirectoryNavigator.invalidateCache();
 	}
 
 	public boolean isValidLink() {
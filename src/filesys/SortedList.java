@@ -1,7 +1,7 @@
 package src.filesys;
 
-import java.util.Iterator;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.io.Serializable;
 
 public class SortedList implements ShellList, Iterable<ShellFile> {
@@ -144,21 +144,41 @@ public class SortedList implements ShellList, Iterable<ShellFile> {
 		return (getNode(fileName) != null);
 	}
 
-	public ShellFile[] toArray() {
+	/**
+	 * Fetch the first file in the sorted order of the list
+	 *
+	 * @return the first ShellFile, or null if the list is empty
+	 */
+	public ShellFile getFirst() {
+		return (first == null) ? null : first.getFile();
+	}
 
-		ShellFile[] result = new ShellFile[length];
-		ShellFile fetched;
-		FLNode inspect = first;
+	/**
+	 * Fetch the file that follows the name fileName in the sorted
+	 * order of the list. fileName does not need to be in the list.
+	 *
+	 * @param fileName the name to find the successor of
+	 * @return the following ShellFile, or null if there is none
+	 */
+	public ShellFile getNext(String fileName) {
 
-		int i;
-		for (i = 0; i < length; i++) {
-			fetched = inspect.getFile();
-			result[i] = fetched;
+		FLNode inspect = getNode(fileName);
+		
+		// Case 1: fileName is in the list, step to the following node
+		if (inspect != null) {
 			inspect = inspect.getNext();
 		}
-
-		return result;
-
+		
+		// Case 2: fileName is not in the list, find the first node after it
+		else {
+			inspect = first;
+			while (inspect != null &&
+					inspect.getName().compareToIgnoreCase(fileName) <= 0) {
+				inspect = inspect.getNext();
+			}
+		}
+		
+		return (inspect == null) ? null : inspect.getFile();
 	}
     
 	public ListIterator<ShellFile> iterator() {
@@ -167,6 +187,8 @@ public class SortedList implements ShellList, Iterable<ShellFile> {
 
 	/**
 	 * The list iterator, which iterates over ShellFiles (files and directories)
+	 * The iterator walks the linked nodes in place, so the file it
+	 * returned last may be removed while it is in use.
 	 *
 	 * @return Iterator that iterates over the lexicographically
 	 * sorted list of ShellFiles
@@ -175,24 +197,30 @@ public class SortedList implements ShellList, Iterable<ShellFile> {
 		
 		ListIterator<ShellFile> iterator = new ListIterator<ShellFile>() {
 			
-			ShellFile[] shellArray = toArray();
+			FLNode nextNode = first;
+			FLNode previousNode = null;
 			int index = 0;
-			int arrayLength = shellArray.length;
 
 			public void add(ShellFile file) {
 				throw new UnsupportedOperationException();
 			}
 			
             public boolean hasNext() {
-                return (index < arrayLength);
+                return (nextNode != null);
             }
 
 			public boolean hasPrevious() {
-				return (index > 0);
+				return (previousNode != null);
 			}
 
             public ShellFile next() {
-            	return shellArray[index++];
+            	if (nextNode == null) {
+            		throw new NoSuchElementException();
+            	}
+            	previousNode = nextNode;
+            	nextNode = nextNode.getNext();
+            	index++;
+            	return previousNode.getFile();
             }
 
 			public int nextIndex() {
@@ -200,7 +228,13 @@ public class SortedList implements ShellList, Iterable<ShellFile> {
 			}
 			
 			public ShellFile previous() {
-				return shellArray[--index];
+				if (previousNode == null) {
+					throw new NoSuchElementException();
+				}
+				nextNode = previousNode;
+				previousNode = previousNode.getPrev();
+				index--;
+				return nextNode.getFile();
 			}
 			
 			public int previousIndex() {
@@ -289,31 +323,30 @@ class FLNode implements Serializable {
 		
 		String fileAddName = fileAdd.getName();
 		FLNode newNode;
-		FLNode result;
 		
 		// If fileAdd comes before this file
 		if (fileAddName.compareToIgnoreCase(name) <= 0) {
 			
-			newNode = new FLNode(fileAdd, null, this);
+			newNode = new FLNode(fileAdd, prev, this);
 			prev = newNode;
-			result = newNode;
+			return newNode;
 		}
 		
-		// If fileAdd comes after this file
-		else {
-			
-			// If this node if the last
-			if (next == null) {
-				newNode = new FLNode(fileAdd, this, null);
-				next = newNode;
-			} else {
-				next = next.addBeforeSorted(fileAdd);
-			}
-			
-			result = this;
+		// If fileAdd comes after this file, walk forward to the
+		// last node it comes after, without recursing
+		FLNode inspect = this;
+		while (inspect.next != null &&
+				fileAddName.compareToIgnoreCase(inspect.next.name) > 0) {
+			inspect = inspect.next;
 		}
 		
-		return result;
+		newNode = new FLNode(fileAdd, inspect, inspect.next);
+		if (inspect.next != null) {
+			inspect.next.prev = newNode;
+		}
+		inspect.next = newNode;
+		
+		return this;
 	}
 
 }
@@ -0,0 +1,66 @@
+package src.filesys;
+
+/**
+ * Callbacks for a walk over a tree with TreeWalker.walk(). Each file
+ * and directory under the start of the walk is visited once before
+ * anything under it, and each directory walked into is visited again
+ * after everything under it.
+ *
+ * To be walked in parallel, a visitor must be able to split off a new
+ * visitor for part of the tree, and merge the results of such parts
+ * back in, in the order the parts are listed. A visitor which does not
+ * override split() is walked sequentially, even when walked with a pool.
+ */
+public abstract class TreeVisitor {
+
+	/**
+	 * Visit a file or directory before anything under it. The walker
+	 * gives the depth, folder and path of file, and a shortcut can be
+	 * walked into by passing its target to walker.walkInto().
+	 *
+	 * @param file the file or directory visited
+	 * @param walker the walker, positioned at file
+	 * @return false to not walk into file if it is a directory
+	 */
+	public boolean preVisit(ShellFile file, TreeWalker walker) {
+		return true;
+	}
+
+	/**
+	 * Visit a directory again, after everything under it. Directories
+	 * which were not walked into are not visited again.
+	 *
+	 * @param entry the directory, or the shortcut it was walked through
+	 * @param walker the walker, positioned at entry
+	 */
+	public void postVisit(ShellFile entry, TreeWalker walker) {
+	}
+
+	/**
+	 * @return true once the walk may stop, e.g. because enough was found
+	 */
+	public boolean isDone() {
+		return false;
+	}
+
+	/**
+	 * Create a visitor for part of the tree, to be visited by another
+	 * thread than this one
+	 *
+	 * @return a new visitor with no results of its own yet, or null if
+	 * this visitor cannot be split, as by default
+	 */
+	public TreeVisitor split() {
+		return null;
+	}
+
+	/**
+	 * Add the results of a visitor returned by split() to the results
+	 * of this one. Parts are merged in the order they are listed in.
+	 *
+	 * @param part the visitor to take the results of
+	 */
+	public void merge(TreeVisitor part) {
+	}
+
+}
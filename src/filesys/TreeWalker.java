@@ -0,0 +1,379 @@
+package src.filesys;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks every file and directory under a directory, in the order they
+ * are listed, either depth first or breadth first. The directories still
+ * to be walked are kept by the walker rather than on the call stack, so
+ * trees of any depth can be walked.
+ *
+ * The walker can be used as an iterator, or drive a TreeVisitor with
+ * walk(), which also visits directories after everything under them and
+ * can walk subdirectories in parallel.
+ *
+ * A directory is walked into after it is returned, unless skipChildren()
+ * is called before the walk moves on, and another directory can be walked
+ * in its place with walkInto(), e.g. the target of a shortcut.
+ *
+ * The depth, folder and path of the file returned last are only known
+ * until hasNext() is called, which may move the walk on.
+ *
+ * Like the iterators of directories, the walk is live: files may be added
+ * or removed as they are walked.
+ */
+public class TreeWalker implements Iterator<ShellFile>, Iterable<ShellFile> {
+
+	// Parallel walks fork tasks at most this many levels deep, below
+	// which each task walks on by itself, so that joining the tasks
+	// cannot overflow the call stack
+	private static final int MAX_FORK_DEPTH = 32;
+
+	// The path of the start of the walk, without a trailing "/"
+	private String startPath;
+	private WalkFrame start;
+	private boolean breadthFirst;
+
+	// The directories being walked: a stack, innermost first, when
+	// walking depth first, or a queue when walking breadth first
+	private ArrayDeque<WalkFrame> frames;
+
+	// The file returned last, the directory listing it,
+	// and the directory to walk into next
+	private ShellFile last;
+	private WalkFrame current;
+	private Directory pending;
+
+	// The file to return next, once it has been found
+	private ShellFile following;
+
+	// The visitor to visit directories again as the walk leaves them
+	private TreeVisitor visitor;
+
+	/**
+	 * Constructor for TreeWalker
+	 * Walks the files under start, with paths starting from its own
+	 *
+	 * @param start the directory to walk
+	 */
+	public TreeWalker(Directory start) {
+		this(start, start.getPath());
+	}
+
+	/**
+	 * Constructor for TreeWalker
+	 *
+	 * @param start the directory to walk
+	 * @param startPath the path start was reached by, which the paths
+	 * of the files under it start with
+	 */
+	public TreeWalker(Directory start, String startPath) {
+		this(new WalkFrame(null, start, null), startPath);
+	}
+
+	/**
+	 * Constructor for TreeWalker
+	 * Walks the files under a directory part way through another walk,
+	 * with the same paths and depths as in that walk
+	 *
+	 * @param start the directory to walk, as reached by the other walk
+	 * @param startPath the path of the start of the other walk
+	 */
+	private TreeWalker(WalkFrame start, String startPath) {
+
+		// Paths are joined with "/", so drop a trailing one
+		if (startPath.endsWith("/")) {
+			startPath = startPath.substring(0, startPath.length() - 1);
+		}
+		this.startPath = startPath;
+		this.start = start;
+		frames = new ArrayDeque<WalkFrame>();
+		frames.add(start);
+	}
+
+	/**
+	 * Walk breadth first: every file at one depth is returned before
+	 * any file deeper. Directories are not visited again after the files
+	 * under them, and walk() with a pool still walks depth first.
+	 *
+	 * @param breadthFirst true to walk breadth first, false for depth first
+	 */
+	public void setBreadthFirst(boolean breadthFirst) {
+		this.breadthFirst = breadthFirst;
+	}
+
+	public Iterator<ShellFile> iterator() {
+		return this;
+	}
+
+	public boolean hasNext() {
+		if (following == null) {
+			following = advance();
+		}
+		return (following != null);
+	}
+
+	public ShellFile next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		last = following;
+		following = null;
+		pending = last.isDirectory() ? (Directory) last : null;
+		return last;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Do not walk into the directory returned last
+	 */
+	public void skipChildren() {
+		pending = null;
+	}
+
+	/**
+	 * Walk the files of folder in place of those of the file returned
+	 * last, listed under the path of that file
+	 *
+	 * @param folder the directory to walk next
+	 */
+	public void walkInto(Directory folder) {
+		pending = folder;
+	}
+
+	/**
+	 * @return the number of directories between the start of the walk
+	 * and the file returned last; 1 for files directly in the start
+	 */
+	public int getDepth() {
+		return current.depth + 1;
+	}
+
+	/**
+	 * @return the directory listing the file returned last
+	 */
+	public Directory getFolder() {
+		return current.folder;
+	}
+
+	/**
+	 * Check whether a directory is being walked on the way to the file
+	 * returned last, e.g. before walking into the target of a shortcut,
+	 * which would walk in a loop if it is
+	 *
+	 * @param folder the directory to look for
+	 * @return true if folder is the start of the walk, or a directory
+	 * walked into between the start and the file returned last
+	 */
+	public boolean isWalking(Directory folder) {
+		for (WalkFrame frame = current; frame != null; frame = frame.parent) {
+			if (frame.folder == folder) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the path the file returned last was reached by
+	 */
+	public String getPath() {
+
+		// Collect the names from the file back up to the start
+		List<String> names = new ArrayList<String>();
+		names.add(last.getName());
+		for (WalkFrame frame = current; frame.entry != null; frame = frame.parent) {
+			names.add(frame.entry.getName());
+		}
+
+		StringBuilder path = new StringBuilder(startPath);
+		for (int i = names.size() - 1; i >= 0; i--) {
+			path.append('/').append(names.get(i));
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Visit every file and directory under the start of the walk
+	 *
+	 * @param visitor the callbacks to visit them with
+	 */
+	public void walk(TreeVisitor visitor) {
+		this.visitor = visitor;
+		while (!visitor.isDone() && hasNext()) {
+			ShellFile file = next();
+			if (!visitor.preVisit(file, this)) {
+				skipChildren();
+			}
+		}
+		this.visitor = null;
+	}
+
+	/**
+	 * Visit every file and directory under the start of the walk, depth
+	 * first, with each directory walked by a task of its own. Each task
+	 * visits with a visitor split from the given one, and the results of
+	 * the tasks are merged back in the order the directories are listed.
+	 * A visitor which cannot be split walks the whole tree by itself,
+	 * in one task.
+	 *
+	 * @param visitor the callbacks to visit with, which hold the results
+	 * of the whole walk at the end
+	 * @param pool the pool to run the tasks in
+	 */
+	public void walk(TreeVisitor visitor, ForkJoinPool pool) {
+		pool.invoke(new WalkTask(start, startPath, visitor, 0));
+	}
+
+	/**
+	 * Find the file following the one returned last, walking into it
+	 * first if it is a directory still to be walked
+	 *
+	 * @return the next file, or null if the walk is over
+	 */
+	private ShellFile advance() {
+		if (pending != null) {
+			WalkFrame child = new WalkFrame(current, pending, last);
+			if (breadthFirst) {
+				frames.addLast(child);
+			} else {
+				frames.addFirst(child);
+			}
+			pending = null;
+		}
+
+		while (!frames.isEmpty()) {
+			WalkFrame frame = frames.peekFirst();
+			ShellFile next = (frame.cursor == null) ? frame.folder.firstFile() :
+					frame.folder.nextFile(frame.cursor);
+
+			if (next != null) {
+				frame.cursor = next;
+				current = frame;
+				return next;
+			}
+
+			// Done with this directory, visit it again on the way back
+			frames.pollFirst();
+			if (visitor != null && !breadthFirst && frame != start) {
+				visitAgain(frame, visitor);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Position the walk at the entry of a directory it is done with,
+	 * and visit the directory again
+	 *
+	 * @param frame the directory done with
+	 * @param visitor the visitor to visit it with
+	 */
+	private void visitAgain(WalkFrame frame, TreeVisitor visitor) {
+		last = frame.entry;
+		current = frame.parent;
+		visitor.postVisit(last, this);
+		pending = null;
+	}
+
+	/**
+	 * Walk a directory in parallel: each directory in it is walked by a
+	 * task of its own, with the other files visited in between by
+	 * visitors of their own, so that the parts can be merged in order
+	 */
+	static class WalkTask extends RecursiveTask<TreeVisitor> {
+
+		static final long serialVersionUID = 42L;
+
+		private WalkFrame frame;
+		private String startPath;
+		private TreeVisitor visitor;
+		private int forkDepth;
+
+		WalkTask(WalkFrame frame, String startPath, TreeVisitor visitor, int forkDepth) {
+			this.frame = frame;
+			this.startPath = startPath;
+			this.visitor = visitor;
+			this.forkDepth = forkDepth;
+		}
+
+		protected TreeVisitor compute() {
+			TreeWalker walker = new TreeWalker(frame, startPath);
+			TreeVisitor part = visitor;
+			walker.visitor = part;
+			List<Object> parts = new ArrayList<Object>();
+
+			while (!part.isDone() && walker.hasNext()) {
+				ShellFile file = walker.next();
+				if (!part.preVisit(file, walker)) {
+					walker.skipChildren();
+				}
+
+				// Fork a task for each directory listed directly in this one,
+				// and visit the files after it with a new part
+				TreeVisitor split = null;
+				if (walker.pending != null && walker.current == frame && forkDepth < MAX_FORK_DEPTH) {
+					split = visitor.split();
+				}
+				if (split != null) {
+					WalkFrame child = new WalkFrame(frame, walker.pending, file);
+					WalkTask task = new WalkTask(child, startPath, split, forkDepth + 1);
+					task.fork();
+					parts.add(task);
+					part = visitor.split();
+					walker.visitor = part;
+					parts.add(part);
+					walker.pending = null;
+				}
+			}
+
+			// Merge the parts in the order of the directory listing
+			for (Object next : parts) {
+				if (next instanceof WalkTask) {
+					visitor.merge(((WalkTask) next).join());
+				} else {
+					visitor.merge((TreeVisitor) next);
+				}
+			}
+
+			if (frame.entry != null) {
+				walker.visitAgain(frame, visitor);
+			}
+			return visitor;
+		}
+
+	}
+
+}
+
+/**
+ * A directory being walked by a TreeWalker, with the entry it was
+ * reached by and the last of its files returned so far
+ */
+class WalkFrame {
+
+	final WalkFrame parent;
+	final Directory folder;
+	final ShellFile entry;
+	final int depth;
+	ShellFile cursor;
+
+	WalkFrame(WalkFrame parent, Directory folder, ShellFile entry) {
+		this.parent = parent;
+		this.folder = folder;
+		this.entry = entry;
+		this.depth = (parent == null) ? 0 : parent.depth + 1;
+	}
+
+}
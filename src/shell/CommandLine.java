@@ -0,0 +1,106 @@
+package src.shell;
+
+/**
+ * A command line split into arguments, which knows which of them are
+ * operators: "|", ">" or ">>" typed without quotes or backslashes.
+ * Quoted, the same text is an argument like any other, so that e.g.
+ * grep "|" file searches for "|".
+ */
+public class CommandLine {
+
+	public static final String PIPE = "|";
+	public static final String OVERWRITE = ">";
+	public static final String APPEND = ">>";
+
+	private String[] args;
+	private boolean[] operators;
+
+	/**
+	 * Constructor for CommandLine
+	 *
+	 * @param args the arguments
+	 * @param operators for each argument, true if it is an operator
+	 */
+	public CommandLine(String[] args, boolean[] operators) {
+		this.args = args;
+		this.operators = operators;
+	}
+
+	/**
+	 * Constructor for CommandLine
+	 * Every argument which reads as an operator is one, as for
+	 * arguments given by a program rather than typed
+	 *
+	 * @param args the arguments
+	 */
+	public CommandLine(String[] args) {
+		this.args = args;
+		operators = new boolean[args.length];
+		for (int i = 0; i < args.length; i++) {
+			operators[i] = isOperatorSymbol(args[i]);
+		}
+	}
+
+	/**
+	 * @return the arguments, which the caller may not change
+	 */
+	public String[] getArgs() {
+		return args;
+	}
+
+	/**
+	 * @return the number of arguments
+	 */
+	public int length() {
+		return args.length;
+	}
+
+	/**
+	 * @param i the index of an argument
+	 * @return the argument
+	 */
+	public String get(int i) {
+		return args[i];
+	}
+
+	/**
+	 * @param i the index of an argument
+	 * @return true if the argument is an operator
+	 */
+	public boolean isOperator(int i) {
+		return operators[i];
+	}
+
+	/**
+	 * @param i the index of an argument
+	 * @param symbol the operator to check for
+	 * @return true if the argument is the operator symbol
+	 */
+	public boolean isOperator(int i, String symbol) {
+		return (operators[i] && args[i].equals(symbol));
+	}
+
+	/**
+	 * Get the arguments from start up to end as a line of their own
+	 *
+	 * @param start the index of the first argument
+	 * @param end the index after the last argument
+	 * @return the part of the line
+	 */
+	public CommandLine subLine(int start, int end) {
+		String[] partArgs = new String[end - start];
+		boolean[] partOperators = new boolean[end - start];
+		System.arraycopy(args, start, partArgs, 0, partArgs.length);
+		System.arraycopy(operators, start, partOperators, 0, partOperators.length);
+		return new CommandLine(partArgs, partOperators);
+	}
+
+	/**
+	 * @param arg an argument
+	 * @return true if arg reads as an operator
+	 */
+	public static boolean isOperatorSymbol(String arg) {
+		return (arg.equals(PIPE) || arg.equals(OVERWRITE) || arg.equals(APPEND));
+	}
+
+}
@@ -0,0 +1,155 @@
+package src.shell;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the command lines typed by the user, or read from a script,
+ * into arguments, in a single pass over each line without regular
+ * expressions.
+ *
+ * Arguments are separated by spaces or tabs. Text between double quotes
+ * is part of one argument, spaces included. A backslash before a double
+ * quote, a backslash, or outside quotes a space or tab, takes that
+ * character literally; before any other character, e.g. in a regular
+ * expression like \d, it is kept as it is.
+ *
+ * "|", ">" and ">>" are only operators when typed without quotes or
+ * backslashes; the parser marks which arguments are.
+ *
+ * The arguments of recently parsed lines are cached, since scripts often
+ * repeat the same lines. Each shell has a parser of its own.
+ */
+public class CommandParser {
+
+	// Most lines whose arguments are cached
+	static final int CACHE_LIMIT = 1024;
+
+	private static final char QUOTE = '"';
+	private static final char ESCAPE = '\\';
+
+	private LinkedHashMap<String, CommandLine> cache;
+
+	/**
+	 * Default constructor
+	 * Creates a parser with an empty cache
+	 */
+	public CommandParser() {
+		cache = new LinkedHashMap<String, CommandLine>(16, 0.75f, true) {
+
+			static final long serialVersionUID = 42L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, CommandLine> eldest) {
+				return (size() > CACHE_LIMIT);
+			}
+		};
+	}
+
+	/**
+	 * Split a command line into arguments
+	 *
+	 * @param line the command line
+	 * @return the arguments, which the caller may change
+	 */
+	public String[] parse(String line) {
+		return parseLine(line).getArgs();
+	}
+
+	/**
+	 * Split a command line into arguments, marking the operators
+	 *
+	 * @param line the command line
+	 * @return the arguments, which the caller may change
+	 */
+	public CommandLine parseLine(String line) {
+		CommandLine parsed = cache.get(line);
+		if (parsed == null) {
+			parsed = split(line);
+			cache.put(line, parsed);
+		}
+		return parsed.subLine(0, parsed.length());
+	}
+
+	/**
+	 * Split a command line into arguments, without the cache
+	 *
+	 * @param line the command line
+	 * @return the arguments, with the operators marked
+	 */
+	public static CommandLine split(String line) {
+
+		ArrayList<String> args = new ArrayList<String>();
+		ArrayList<Boolean> operators = new ArrayList<Boolean>();
+		StringBuilder arg = new StringBuilder();
+		boolean inArg = false;		// true once the current argument has begun
+		boolean plain = true;		// true if no part of it is quoted or escaped
+		boolean quoted = false;		// true between double quotes
+		int length = line.length();
+
+		for (int i = 0; i < length; i++) {
+			char c = line.charAt(i);
+
+			// Case 0: an escaped character
+			if (c == ESCAPE && i + 1 < length && isEscaped(line.charAt(i + 1), quoted)) {
+				arg.append(line.charAt(++i));
+				inArg = true;
+				plain = false;
+
+			// Case 1: the start or end of quoted text
+			} else if (c == QUOTE) {
+				quoted = !quoted;
+				inArg = true;
+				plain = false;
+
+			// Case 2: the end of an argument
+			} else if (!quoted && (c == ' ' || c == '\t')) {
+				if (inArg) {
+					addArg(args, operators, arg.toString(), plain);
+					arg.setLength(0);
+					inArg = false;
+					plain = true;
+				}
+
+			// Case 3: any other character
+			} else {
+				arg.append(c);
+				inArg = true;
+			}
+		}
+
+		if (inArg) {
+			addArg(args, operators, arg.toString(), plain);
+		}
+
+		boolean[] marks = new boolean[operators.size()];
+		for (int i = 0; i < marks.length; i++) {
+			marks[i] = operators.get(i);
+		}
+		return new CommandLine(args.toArray(new String[args.size()]), marks);
+	}
+
+	/**
+	 * Add an argument which has been read
+	 *
+	 * @param args the arguments read so far
+	 * @param operators for each of them, true if it is an operator
+	 * @param arg the argument
+	 * @param plain true if no part of arg was quoted or escaped
+	 */
+	private static void addArg(ArrayList<String> args, ArrayList<Boolean> operators,
+			String arg, boolean plain) {
+		args.add(arg);
+		operators.add(plain && CommandLine.isOperatorSymbol(arg));
+	}
+
+	/**
+	 * @param c the character after a backslash
+	 * @param quoted true if the backslash is between double quotes
+	 * @return true only if the backslash escapes c
+	 */
+	private static boolean isEscaped(char c, boolean quoted) {
+		return (c == QUOTE || c == ESCAPE || (!quoted && (c == ' ' || c == '\t')));
+	}
+
+}
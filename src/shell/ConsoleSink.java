@@ -0,0 +1,67 @@
+package src.shell;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Prints the output and errors of commands to the user through a
+ * buffered writer. The output of each command is followed by a line
+ * break, unless the command wrote nothing.
+ */
+public class ConsoleSink extends OutputSink {
+
+	private BufferedWriter out;
+	private boolean written;
+
+	/**
+	 * Default constructor
+	 * Prints to standard output
+	 */
+	public ConsoleSink() {
+		this(new OutputStreamWriter(System.out));
+	}
+
+	/**
+	 * Constructor for ConsoleSink
+	 *
+	 * @param out the destination to print to
+	 */
+	public ConsoleSink(Writer out) {
+		this.out = new BufferedWriter(out);
+		written = false;
+	}
+
+	public void write(String text) {
+		if (text.length() > 0) {
+			try {
+				out.write(text);
+				written = true;
+			} catch (IOException e) {
+				// Nothing more can be shown to the user
+			}
+		}
+	}
+
+	public void error(String text) {
+		write(text);
+	}
+
+	/**
+	 * End the line of the output of a command, and print whatever is
+	 * still buffered before the user is prompted again
+	 */
+	public void end() {
+		try {
+			if (written) {
+				out.newLine();
+			}
+			out.flush();
+		} catch (IOException e) {
+			// Nothing more can be shown to the user
+		}
+		written = false;
+	}
+
+}
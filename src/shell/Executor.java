@@ -1,62 +1,309 @@
 package src.shell;
 
 import src.commands.*;
+import src.filesys.ShellDirectory;
 
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 public class Executor {
 
-	private static Map<String, Command> commandMap;
+	private static final String PIPE_ERROR = "Error: Missing command in pipeline";
+	private static final String STAGE_ERROR = "%s has experienced an internal error: %s\n";
+	
+	private static Map<String, Class<? extends Command>> commandMap;
 
 	static {
 		
-		commandMap = new HashMap<String, Command>();
-		
-		// Load all Command objects to memory
-		commandMap.put("mkdir", new MakeDir());
-		commandMap.put("cd", new ChangeDir());
-		commandMap.put("ls", new ListFiles());
-		commandMap.put("pwd", new PresentWorkDir());
-		commandMap.put("mv", new Move());
-		commandMap.put("cp", new Copy());
-		commandMap.put("cat", new Cat());
-		commandMap.put("echo", new Echo());
-		commandMap.put("man", new Man());
-		commandMap.put("rm", new Remove());
-		commandMap.put("get", new Get());
-		commandMap.put("reset", new Reset());
-		commandMap.put("find", new Find());
-		commandMap.put("ln", new Link());
-		commandMap.put("grep", new Grep());
+		commandMap = new HashMap<String, Class<? extends Command>>();
+		
+		// Register the class of every Command
+		commandMap.put("mkdir", MakeDir.class);
+		commandMap.put("cd", ChangeDir.class);
+		commandMap.put("ls", ListFiles.class);
+		commandMap.put("pwd", PresentWorkDir.class);
+		commandMap.put("mv", Move.class);
+		commandMap.put("cp", Copy.class);
+		commandMap.put("cat", Cat.class);
+		commandMap.put("echo", Echo.class);
+		commandMap.put("man", Man.class);
+		commandMap.put("rm", Remove.class);
+		commandMap.put("get", Get.class);
+		commandMap.put("reset", Reset.class);
+		commandMap.put("find", Find.class);
+		commandMap.put("ln", Link.class);
+		commandMap.put("grep", Grep.class);
+		commandMap.put("du", DiskUsage.class);
+		commandMap.put("index", Index.class);
 	}
 	
+	/**
+	 * Create a Command object to execute a command with. Every execution
+	 * gets an object of its own, which holds the state of that execution,
+	 * so that shells running at the same time never share it.
+	 * 
+	 * @param commandName the name of the command
+	 * @return a new Command object, or null if no command has that name
+	 */
 	public static Command getCommand(String commandName) {
-		return commandMap.get(commandName);
+		Class<? extends Command> commandClass = commandMap.get(commandName);
+		if (commandClass == null) {
+			return null;
+		}
+		
+		try {
+			return commandClass.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
+	/**
+	 * Execute the command in commandArray, and return its output
+	 * 
+	 * @param commandArray the command name followed by its arguments
+	 * @param shell JShell object for current session
+	 * @return the errors followed by the output of the command
+	 */
 	public String runCommand(String[] commandArray, JShell shell) {
+		StringSink out = new StringSink();
+		runCommand(commandArray, shell, out);
+		return out.toString();
+	}
+
+	/**
+	 * Execute the command in commandArray, writing its output to out
+	 * as it is produced. Commands on the same tree from shells running at
+	 * the same time take turns, except that commands which only read the
+	 * tree may run together.
+	 * 
+	 * The command may be a pipeline of commands separated by "|", whose
+	 * stages all run at the same time, each reading the output of the
+	 * stage before it through a Pipe. Only the output of the last stage
+	 * is written to out, but the errors of every stage are.
+	 * 
+	 * Every argument which reads as "|", ">" or ">>" is taken as that
+	 * operator.
+	 * 
+	 * @param commandArray the command name followed by its arguments
+	 * @param shell JShell object for current session
+	 * @param out the destination of the output and errors
+	 */
+	public void runCommand(String[] commandArray, JShell shell, OutputSink out) {
+		runCommand(new CommandLine(commandArray), shell, out);
+	}
+
+	/**
+	 * Execute the command typed as line, writing its output to out as
+	 * it is produced. Only the arguments the parser marked as operators
+	 * separate the stages of a pipeline or redirect the output.
+	 * 
+	 * @param line the command name followed by its arguments
+	 * @param shell JShell object for current session
+	 * @param out the destination of the output and errors
+	 */
+	public void runCommand(CommandLine line, JShell shell, OutputSink out) {
 		
 		String commandNotFoundError = "%s: command not found";
-		String result = new String();
 		
-		// If commandArray is empty, return the empty string
-		// Else, handle the command, i.e. the first string in commandArray
-		int commandLength = commandArray.length;
-		if (commandLength != 0) {
+		// If line is empty, there is no output
+		// Else, handle the command, i.e. the first string in line
+		int commandLength = line.length();
+		if (commandLength == 0) {
+			return;
+		}
+		
+		// Case 0: a stage of the pipeline is empty
+		List<CommandLine> stageLines = splitPipeline(line);
+		if (stageLines == null) {
+			out.error(PIPE_ERROR);
+			return;
+		}
+		
+		// Fetch the Command objects corresponding to the request
+		Command[] commands = new Command[stageLines.size()];
+		List<String[]> stages = new ArrayList<String[]>();
+		boolean redirected = false;
+		for (int i = 0; i < commands.length; i++) {
+			CommandLine stage = stageLines.get(i);
+			String commandName = stage.get(0);
+			commands[i] = getCommand(commandName);
 			
-			// Fetch the Command object corresponding to the request
-			String commandName = commandArray[0];
-			Command command = getCommand(commandName);
+			// Case 1: a command does not exist
+			if (commands[i] == null) {
+				out.error(String.format(commandNotFoundError, commandName));
+				return;
+			}
 			
-			// Check if command exists and set result accordingly
-			if (command == null) {
-				result = String.format(commandNotFoundError, commandName);
+			// Take the redirect out of the arguments, and pass it
+			// to the command as it is
+			Redirect redirect = Redirect.find(stage);
+			commands[i].setRedirect(redirect);
+			if (redirect != null) {
+				stages.add(redirect.getArgs());
+				redirected = true;
 			} else {
-				result = command.runCommand(commandArray, shell);
+				stages.add(stage.getArgs());
 			}
 		}
 		
-		return result;
+		// Case 2: run the command, or all stages of the pipeline
+		Lock lock = treeLock(commands, redirected, shell);
+		lock.lock();
+		try {
+			if (commands.length == 1) {
+				commands[0].runCommand(stages.get(0), shell, out);
+			} else {
+				runPipeline(commands, stages, shell, new SharedSink(out));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Run the stages of a pipeline at the same time, each but the last
+	 * on a thread of its own, and wait for all of them to finish
+	 * 
+	 * @param commands the command of each stage
+	 * @param stages the arguments of each stage
+	 * @param shell JShell object for current session
+	 * @param out the destination of the output of the last stage, and
+	 * the errors of all stages
+	 */
+	private static void runPipeline(Command[] commands, List<String[]> stages, final JShell shell,
+			final OutputSink out) {
+		
+		Thread[] threads = new Thread[commands.length - 1];
+		Pipe input = null;
+		for (int i = 0; i < threads.length; i++) {
+			final Command command = commands[i];
+			final String[] args = stages.get(i);
+			final Pipe stageInput = input;
+			final Pipe stageOutput = new Pipe(out);
+			
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					runStage(command, args, shell, stageInput, stageOutput, out);
+				}
+			}, "pipeline-" + args[0]);
+			threads[i].start();
+			input = stageOutput;
+		}
+		
+		// The last stage runs on this thread, writing to out
+		int last = commands.length - 1;
+		runStage(commands[last], stages.get(last), shell, input, out, out);
+		
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Run one stage of a pipeline, and let the stages before and after
+	 * it know once it is done
+	 * 
+	 * @param command the command of the stage
+	 * @param args the arguments of the stage
+	 * @param shell JShell object for current session
+	 * @param input the output of the stage before, or null for the first
+	 * @param output the destination of the output of the stage
+	 * @param errors the destination of unexpected errors
+	 */
+	private static void runStage(Command command, String[] args, JShell shell, Pipe input,
+			OutputSink output, OutputSink errors) {
+		
+		command.setInput(input);
+		try {
+			command.runCommand(args, shell, output);
+		} catch (RuntimeException e) {
+			errors.error(String.format(STAGE_ERROR, args[0], e));
+		} finally {
+			if (input != null) {
+				input.closeInput();
+			}
+			if (output instanceof Pipe) {
+				output.end();
+			}
+		}
+	}
+	
+	/**
+	 * Split a command into the stages of a pipeline, at each "|"
+	 * operator
+	 * 
+	 * @param line the command, with the stages separated by "|"
+	 * @return the arguments of each stage, or null if a stage is empty
+	 */
+	private static List<CommandLine> splitPipeline(CommandLine line) {
+		List<CommandLine> stages = new ArrayList<CommandLine>();
+		int start = 0;
+		for (int i = 0; i <= line.length(); i++) {
+			if (i == line.length() || line.isOperator(i, CommandLine.PIPE)) {
+				if (i == start) {
+					return null;
+				}
+				stages.add(line.subLine(start, i));
+				start = i + 1;
+			}
+		}
+		return stages;
+	}
+	
+	/**
+	 * Get the lock to hold on the tree of the working directory while
+	 * executing a command or pipeline: the read lock if every command only
+	 * reads the tree and no output is redirected into it, else the write lock.
+	 * The lock is held for the whole pipeline, so that its stages can never
+	 * wait for each other's locks.
+	 * 
+	 * @param commands the command of each stage
+	 * @param redirected true if the output of a stage is redirected
+	 * @param shell JShell object for current session
+	 * @return the lock to hold
+	 */
+	private static Lock treeLock(Command[] commands, boolean redirected, JShell shell) {
+		ReadWriteLock lock = ((ShellDirectory) shell.getWorkDir()).getTreeLock();
+		if (redirected) {
+			return lock.writeLock();
+		}
+		
+		for (Command command : commands) {
+			if (!command.readsOnly()) {
+				return lock.writeLock();
+			}
+		}
+		return lock.readLock();
+	}
+	
+}
+
+
+/**
+ * Passes output and errors on to another sink, one stage of a pipeline
+ * at a time, since the stages write their errors at the same time
+ */
+class SharedSink extends OutputSink {
+	
+	private OutputSink out;
+	
+	SharedSink(OutputSink out) {
+		this.out = out;
+	}
+	
+	public synchronized void write(String text) {
+		out.write(text);
+	}
+	
+	public synchronized void error(String text) {
+		out.error(text);
 	}
 	
 }
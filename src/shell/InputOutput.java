@@ -12,6 +12,16 @@ public class InputOutput {
 		userInput = new BufferedReader(new InputStreamReader(System.in));
 	}
 	
+	/**
+	 * Get the reader of the user's input, e.g. to read commands piped
+	 * into the shell, which the user may also be asked questions from
+	 *
+	 * @return the reader of standard input
+	 */
+	public static BufferedReader getUserInput() {
+		return userInput;
+	}
+	
 	/**
 	 * Print a formatted line to the JShell user,
 	 * Read the user's input and return it
@@ -57,7 +67,11 @@ public class InputOutput {
 		} 
 		catch (IOException e) {}
 		
-		if (result.length() == 0) {
+		// With no input left, e.g. at the end of commands piped in, the
+		// answer is "No"
+		if (result == null) {
+			result = "No";
+		} else if (result.length() == 0) {
 			result = "Yes";
 		}
 		
@@ -92,7 +106,7 @@ public class InputOutput {
 				answer = false;
 				break;
 			} else {
-				result = messageUser(tryAgain + message);
+				result = messageUser(tryAgain + message).toLowerCase();
 			}
 		}
 		
@@ -2,24 +2,39 @@ package src.shell;
 
 import src.filesys.*;
 
-import java.util.ArrayList; 
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 import java.io.ObjectOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 public class JShell {
 	
 	private InputOutput io;
 	private Executor executor;
+	private OutputSink console;
+	private CommandParser parser;
 	private Directory workDir;
 	
 	private static final String NOT_SAVED = "JShell could not save its state";
+	private static final String NOT_LOADED = "JShell could not load its saved state, starting with an empty tree\n";
 	private static final String ERROR_MESSAGE = "JShell has experienced an internal error:\n\n%s\n";
 	private static final String SAVE_NAME = "jshell.data";
+	private static final String SCRIPT_OPTION = "-f";
+	private static final String STANDARD_INPUT = "-";
+	private static final String USAGE = "Usage: JShell [-f SCRIPT]\n" +
+			"Runs the commands in SCRIPT, or those piped in if SCRIPT is \"-\"; " +
+			"with no arguments, prompts for commands";
+	private static final String COMMENT = "#";
+	private static final String NOT_READ = "JShell could not read the script %s";
+	private static final String COMMAND_TIME = "%10.3f ms  %s%n";
+	private static final String THROUGHPUT = "%d commands in %.3f s, %.0f commands/s%n";
 	
 	/**
 	 * Default constructor
@@ -31,6 +46,8 @@ public class JShell {
 	public JShell() {
 		io = new InputOutput();
 		executor = new Executor();
+		console = new ConsoleSink();
+		parser = new CommandParser();
 		workDir = new ShellDirectory();
 	}
 	
@@ -55,7 +72,7 @@ public class JShell {
 	 * The main Shell function:
 	 * Prompt the user, send the arguments provided
 	 * by user to Executor for corresponding command execution
-	 * Print there result of execution back to user
+	 * Print the output of execution back to user as it is produced
 	 * Catch any unexpected internal errors and print to user
 	 *
 	 * Uses: InputOutput, Executor, Directory
@@ -64,8 +81,6 @@ public class JShell {
 		
 		// Initialize variables
 		String input;
-		String output;
-		String[] parsedArgs;
 		
 		// Exit flag
 		Boolean exit = false;
@@ -89,14 +104,14 @@ public class JShell {
 				} else {
 					
 					// Try to parse and execute the command
-					// If no exceptions are thrown, print the output to the user
+					// The output is printed to the user as it is produced
 					try {
-						parsedArgs = parseString(input);
-						output = executor.runCommand(parsedArgs, this); 
-						io.print(output);
+						executor.runCommand(parser.parseLine(input), this, console); 
+						console.end();
 						
 					// Catch unexpected exceptions during parsing our executing
 					} catch (Exception e) {
+						console.end();
 						io.print(String.format(ERROR_MESSAGE, e));
 					}
 				 	
@@ -114,32 +129,55 @@ public class JShell {
 	
 		   
 	/**
-	 * Split the user's input based on following pattern:
-	 * 	Match any character(s) between two quotes,
-	 * 	otherwise match valid characters only
-	 * 	Following is the list of valid characters:
-	 * 		letters (case insensitive)
-	 * 		digits
-	 * 		special chars - slash, dot, plus, minus, underscore 
-	 * @param userInput Command input from user 
-	 * @return String[] of parsed command arguments
+	 * Run the commands of a script back to back, without prompting for
+	 * them, writing their output to out. Empty lines and lines starting
+	 * with "#" are skipped, and the script ends at its end or at "exit".
+	 * The time each command took is written to report, followed by the
+	 * number of commands run per second.
+	 *
+	 * @param script the commands to run, one per line
+	 * @param out the destination of the output of the commands
+	 * @param report the destination of the timings
+	 * @throws IOException if the script or the report fails
 	 */
-	public String[] parseString (String userInput)  {
+	public void runBatch(BufferedReader script, OutputSink out, Writer report) throws IOException {
 		
-		ArrayList<String> list = new ArrayList<String>();
-		Pattern p = Pattern.compile("(\".*\")|[^\" ]*");
-		Matcher m = p.matcher(userInput);
+		int count = 0;
+		long start = System.nanoTime();
+		String input = script.readLine();
 		
-		// Get all possible pattern matches
-		while (m.find()) {			
-			String match = m.group();		
-			if (!match.isEmpty()) {		// Ignore matches of white space
-				list.add(match.replaceAll("\"*",""));	// Remove all quotes
+		while (input != null && input.compareToIgnoreCase("exit") != 0) {
+			
+			if (input.length() != 0 && !input.startsWith(COMMENT)) {
+				long commandStart = System.nanoTime();
+				try {
+					executor.runCommand(parser.parseLine(input), this, out);
+				} catch (Exception e) {
+					out.error(String.format(ERROR_MESSAGE, e));
+				}
+				out.end();
+				
+				long elapsed = System.nanoTime() - commandStart;
+				report.write(String.format(COMMAND_TIME, elapsed / 1e6, input));
+				count++;
 			}
+			input = script.readLine();
 		}
-
-		// Parsed arguments
-		return list.toArray(new String[list.size()]);
+		
+		double seconds = (System.nanoTime() - start) / 1e9;
+		report.write(String.format(THROUGHPUT, count, seconds, count / Math.max(seconds, 1e-9)));
+		report.flush();
+	}
+	
+	/**
+	 * Split the user's input into arguments: text between double quotes
+	 * is one argument, spaces included, and a backslash escapes the
+	 * character after it. Lines parsed recently are not parsed again.
+	 * @param userInput Command input from user 
+	 * @return String[] of parsed command arguments
+	 */
+	public String[] parseString (String userInput)  {
+		return parser.parse(userInput);
 	}
 
 	public void saveState() throws IOException {
@@ -166,7 +204,10 @@ public class JShell {
 	    	stateDir = (Directory) in.readObject();
 	    	stateDir = stateDir.getRoot();
 	    	in.close();
+	    } catch(FileNotFoundException e) {
+	    	stateDir = new ShellDirectory("/");
 	    } catch(Exception e) {
+	    	InputOutput.print(NOT_LOADED);
 	    	stateDir = new ShellDirectory("/");
 	    }
 
@@ -174,9 +215,51 @@ public class JShell {
 
 	}
 	
+	/**
+	 * Run the shell: "-f script" runs the commands in the script, and
+	 * "-f -" runs the commands piped in. Otherwise the user is prompted
+	 * for commands.
+	 *
+	 * @param args "-f" and the path of a script or "-", or nothing
+	 */
 	public static void main(String[] args) {
+		
+		// Case 0: neither a script nor interactive
+		boolean script = (args.length == 2 && args[0].equals(SCRIPT_OPTION));
+		if (!script && args.length > 0) {
+			System.err.println(USAGE);
+			return;
+		}
+		
 		JShell shell = new JShell();
 		shell.loadState();
-		shell.runShell();
+		
+		// Case 1: interactive
+		if (!script) {
+			shell.runShell();
+			return;
+		}
+		
+		// Case 2: a script, or commands piped in
+		Writer report = new BufferedWriter(new OutputStreamWriter(System.err));
+		boolean piped = args[1].equals(STANDARD_INPUT);
+		try {
+			if (piped) {
+				shell.runBatch(InputOutput.getUserInput(), shell.console, report);
+			} else {
+				try (BufferedReader commands = new BufferedReader(new FileReader(args[1]))) {
+					shell.runBatch(commands, shell.console, report);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println(String.format(NOT_READ, piped ? "from standard input" : args[1]));
+			return;
+		}
+		
+		try {
+			shell.saveState();
+		} catch (IOException e) {
+			InputOutput.print(NOT_SAVED);
+		}
 	}
 }
@@ -0,0 +1,51 @@
+package src.shell;
+
+/**
+ * The destination of the output of a command. Commands write their
+ * output to a sink as it is produced, rather than returning all of it
+ * once they are done.
+ *
+ * Errors are written apart from the output, so that they still reach
+ * the user when the output is redirected to a file.
+ *
+ * A sink is also an Appendable of output, so that e.g. the contents
+ * of a file can be written to it chunk by chunk.
+ */
+public abstract class OutputSink implements Appendable {
+
+	/**
+	 * Write part of the output of a command
+	 *
+	 * @param text the output to write
+	 */
+	public abstract void write(String text);
+
+	/**
+	 * Write an error of a command
+	 *
+	 * @param text the error message to write
+	 */
+	public abstract void error(String text);
+
+	public OutputSink append(CharSequence text) {
+		write(String.valueOf(text));
+		return this;
+	}
+
+	public OutputSink append(CharSequence text, int start, int end) {
+		write(String.valueOf(text).substring(start, end));
+		return this;
+	}
+
+	public OutputSink append(char c) {
+		write(String.valueOf(c));
+		return this;
+	}
+
+	/**
+	 * End the output of a command, once it is done writing
+	 */
+	public void end() {
+	}
+
+}
@@ -0,0 +1,160 @@
+package src.shell;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Carries the output of one stage of a pipeline to the next, while both
+ * run. The output is passed on in chunks through a bounded buffer: the
+ * writing stage waits while the buffer is full, and the reading stage
+ * waits while it is empty, so the output is never held all at once.
+ *
+ * Errors are not passed on, but written to the sink the user sees.
+ * Once the reading stage is done, whatever is still written is dropped,
+ * so that the writing stage never waits for a reader that is gone.
+ */
+public class Pipe extends OutputSink {
+
+	// Most chunks held at once, and the longest chunk
+	static final int CAPACITY = 256;
+	static final int CHUNK_LIMIT = 8192;
+
+	// Marks the end of the output, compared by identity
+	private static final String END = new String();
+
+	private ArrayBlockingQueue<String> chunks;
+	private OutputSink errors;
+	private volatile boolean closed;
+
+	// The chunk being read, and how much of it was read
+	private String chunk;
+	private int position;
+	private boolean ended;
+
+	/**
+	 * Constructor for Pipe
+	 *
+	 * @param errors the sink to write errors to, which may be written to
+	 * by several stages at once
+	 */
+	public Pipe(OutputSink errors) {
+		this.errors = errors;
+		chunks = new ArrayBlockingQueue<String>(CAPACITY);
+	}
+
+	public void write(String text) {
+		for (int start = 0; start < text.length() && !closed; start += CHUNK_LIMIT) {
+			put(text.substring(start, Math.min(text.length(), start + CHUNK_LIMIT)));
+		}
+	}
+
+	public void error(String text) {
+		errors.error(text);
+	}
+
+	/**
+	 * Mark the end of the output, once the writing stage is done
+	 */
+	public void end() {
+		put(END);
+	}
+
+	/**
+	 * Read the next chunk of the output, waiting for it to be written
+	 *
+	 * @return the next chunk, or null at the end of the output
+	 */
+	public String read() {
+		if (chunk != null) {
+			String rest = chunk.substring(position);
+			chunk = null;
+			return rest;
+		}
+		return take();
+	}
+
+	/**
+	 * Read the next line of the output, waiting for it to be written.
+	 * Like String.split("\n"), an empty line at the end is not returned.
+	 *
+	 * @return the next line, without its line break, or null at the end
+	 * of the output
+	 */
+	public String readLine() {
+		StringBuilder line = null;
+		while (true) {
+			if (chunk == null) {
+				chunk = take();
+				position = 0;
+				if (chunk == null) {
+					return (line == null || line.length() == 0) ? null : line.toString();
+				}
+			}
+
+			int end = chunk.indexOf('\n', position);
+			if (end != -1) {
+				String text = chunk.substring(position, end);
+				position = end + 1;
+				if (position == chunk.length()) {
+					chunk = null;
+				}
+				return (line == null) ? text : line.append(text).toString();
+			}
+
+			// The line goes on in the next chunk
+			if (line == null) {
+				line = new StringBuilder();
+			}
+			line.append(chunk, position, chunk.length());
+			chunk = null;
+		}
+	}
+
+	/**
+	 * Stop reading, once the reading stage is done, and drop whatever
+	 * is still written
+	 */
+	public void closeInput() {
+		closed = true;
+		chunks.clear();
+	}
+
+	/**
+	 * Add a chunk to the buffer, waiting while it is full
+	 *
+	 * @param text the chunk to add
+	 */
+	private void put(String text) {
+		if (closed) {
+			return;
+		}
+		try {
+			chunks.put(text);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Take a chunk from the buffer, waiting while it is empty
+	 *
+	 * @return the chunk, or null at the end of the output
+	 */
+	private String take() {
+		if (ended) {
+			return null;
+		}
+		try {
+			String text = chunks.take();
+			if (text == END) {
+				ended = true;
+				return null;
+			}
+			return text;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			ended = true;
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package src.shell;
+
+/**
+ * Collects the output and errors of a command in memory, for callers
+ * which need them as Strings, e.g. Executor.runCommand and the tests
+ */
+public class StringSink extends OutputSink {
+
+	private StringBuilder output;
+	private StringBuilder errors;
+
+	/**
+	 * Default constructor
+	 * Creates a new empty sink
+	 */
+	public StringSink() {
+		output = new StringBuilder();
+		errors = new StringBuilder();
+	}
+
+	public void write(String text) {
+		output.append(text);
+	}
+
+	public void error(String text) {
+		errors.append(text);
+	}
+
+	/**
+	 * @return the output written so far
+	 */
+	public String getOutput() {
+		return output.toString();
+	}
+
+	/**
+	 * @return the errors written so far
+	 */
+	public String getErrors() {
+		return errors.toString();
+	}
+
+	/**
+	 * @return the errors followed by the output, as commands used to
+	 * return them
+	 */
+	public String toString() {
+		return errors.toString() + output.toString();
+	}
+
+}
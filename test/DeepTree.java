@@ -0,0 +1,49 @@
+/**
+ * Builds trees deeper than the call stack can recurse into, for the
+ * JUnit 4 classes that test walking, copying and searching them
+ * @version 1.0
+ */
+package test;
+
+import src.filesys.*;
+
+public class DeepTree {
+
+	// Deeper than the call stack can recurse
+	public static final int DEPTH = 100000;
+
+	/**
+	 * Build a chain of directories named "d", with a file named
+	 * "bottom" in the last one. The chain is built from the bottom up,
+	 * so that adding each directory does not walk the ones above it.
+	 *
+	 * @param depth the number of directories
+	 * @return the top directory of the chain
+	 * @throws DirectoryException
+	 */
+	public static ShellDirectory build(int depth) throws DirectoryException {
+		ShellDirectory top = new ShellDirectory("d");
+		ShellFile bottom = new ShellFile("bottom");
+		bottom.setContents("found at the bottom");
+		top.addFile(bottom);
+		for (int i = 1; i < depth; i++) {
+			ShellDirectory above = new ShellDirectory("d");
+			above.addDirectory(top);
+			top = above;
+		}
+		return top;
+	}
+
+	/**
+	 * @param dir a directory holding a tree built by build
+	 * @return the file at the bottom of the tree
+	 */
+	public static ShellFile bottomOf(Directory dir) {
+		Directory current = (Directory) dir.getFile("d");
+		while (current.hasFile("d")) {
+			current = (Directory) current.getFile("d");
+		}
+		return current.getFile("bottom");
+	}
+
+}
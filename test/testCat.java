@@ -108,6 +108,35 @@ public class testCat {
 		assertTrue("invalid arguments", tCat.runCommand(cmd9, tJShell).equals(Command.invalidArgsMessage));
 	}
 
+	/**
+	 * Test writing the contents of files to a sink, and redirecting
+	 * them to a file
+	 */
+	@Test
+	public void testRunCommandToSink() throws DirectoryException {
+		Directory root = tJShell.getWorkDir();
+		ShellFile file1 = new ShellFile("file1");
+		file1.setContents("first");
+		file1.getContents().append(" line\nsecond line");
+		root.addFile(file1);
+		
+		StringSink sink = new StringSink();
+		tCat.runCommand(new String[]{"cat", "file1", "missing", "file1"}, tJShell, sink);
+		assertEquals("first line\nsecond line\nfirst line\nsecond line", sink.getOutput());
+		assertEquals(String.format(Command.notFoundMessage, "missing", "file or directory") + "\n",
+				sink.getErrors());
+		
+		// Redirect into a new file, then append to it
+		assertEquals("", tCat.runCommand(new String[]{"cat", "file1", ">", "file2"}, tJShell));
+		assertEquals("", tCat.runCommand(new String[]{"cat", "file1", ">>", "file2"}, tJShell));
+		assertEquals("first line\nsecond line\nfirst line\nsecond line",
+				root.getFile("file2").toString());
+		
+		// A file cannot be created over an existing one
+		assertEquals(String.format(Command.fileExistsMessage, "file2"),
+				tCat.runCommand(new String[]{"cat", "file1", ">", "file2"}, tJShell));
+	}
+
 	/**
 	 * Test helper function IsCorrectPath method in Cat
 	 * 
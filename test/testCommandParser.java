@@ -0,0 +1,90 @@
+/**
+ * This JUnit 4 class tests CommandParser class
+ * @version 1.0
+ */
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import src.shell.*;
+
+public class testCommandParser {
+
+	private CommandParser parser;
+
+	@Before
+	public void setUp() {
+		parser = new CommandParser();
+	}
+
+	/**
+	 * Test splitting on spaces and tabs, ignoring extra ones
+	 */
+	@Test
+	public void testSplit() {
+		assertArrayEquals(new String[]{"ls", "-R", "/a"}, parser.parse("  ls -R\t /a "));
+		assertArrayEquals(new String[]{}, parser.parse("   "));
+	}
+
+	/**
+	 * Test quoted arguments, including several on one line,
+	 * empty ones and ones joined to unquoted text
+	 */
+	@Test
+	public void testQuotes() {
+		assertArrayEquals(new String[]{"echo", "some text", ">", "a file"},
+				parser.parse("echo \"some text\" > \"a file\""));
+		assertArrayEquals(new String[]{"echo", "", "x"}, parser.parse("echo \"\" x"));
+		assertArrayEquals(new String[]{"find", "Folder 6/x"}, parser.parse("find \"Folder 6\"/x"));
+		assertArrayEquals(new String[]{"echo", "open end"}, parser.parse("echo \"open end"));
+	}
+
+	/**
+	 * Test escaped characters, and backslashes that escape nothing
+	 */
+	@Test
+	public void testEscapes() {
+		assertArrayEquals(new String[]{"cat", "a b"}, parser.parse("cat a\\ b"));
+		assertArrayEquals(new String[]{"echo", "say \"hi\""}, parser.parse("echo \"say \\\"hi\\\"\""));
+		assertArrayEquals(new String[]{"grep", "\\d{3}$", "\\"}, parser.parse("grep \\d{3}$ \\"));
+		assertArrayEquals(new String[]{"grep", "a\\b", "\\"}, parser.parse("grep \"a\\\\b\" \\\\"));
+	}
+
+	/**
+	 * Test that "|", ">" and ">>" are only operators when typed
+	 * without quotes or backslashes
+	 */
+	@Test
+	public void testOperators() {
+		CommandLine line = parser.parseLine("grep \"|\" f | cat > \">\" >> out");
+		assertArrayEquals(new String[]{"grep", "|", "f", "|", "cat", ">", ">", ">>", "out"}, line.getArgs());
+		boolean[] operators = {false, false, false, true, false, true, false, true, false};
+		for (int i = 0; i < operators.length; i++) {
+			assertEquals("argument " + i, operators[i], line.isOperator(i));
+		}
+	}
+
+	/**
+	 * Test that a cached line is parsed the same, and that changing
+	 * the arguments returned does not change the cache
+	 */
+	@Test
+	public void testCache() {
+		String[] first = parser.parse("mkdir a b");
+		first[1] = "changed";
+		assertArrayEquals(new String[]{"mkdir", "a", "b"}, parser.parse("mkdir a b"));
+		assertNotSame(parser.parse("mkdir a b"), parser.parse("mkdir a b"));
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testCommandParser.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
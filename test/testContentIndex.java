@@ -0,0 +1,116 @@
+package test;
+
+import src.filesys.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+public class testContentIndex {
+
+	ShellDirectory root;
+	ShellDirectory folder;
+	ShellFile file1;
+	ShellFile file2;
+
+	@Before
+	public void setUp() throws Exception {
+		root = new ShellDirectory("/");
+		folder = new ShellDirectory("folder", root);
+		root.addDirectory(folder);
+
+		file1 = new ShellFile("file1");
+		file2 = new ShellFile("file2");
+		file1.setContents("alpha beta");
+		file2.setContents("gamma");
+		root.addFile(file1);
+		folder.addFile(file2);
+
+		root.setContentIndex(new ContentIndex());
+	}
+
+	/**
+	 * Test that the index is built from the files already in the tree
+	 */
+	@Test
+	public void testBuild() {
+
+		// Setup
+		ContentIndex index = folder.getContentIndex();
+
+		// Test
+		assertNotNull("Directories do not find the index of their root", index);
+		assertEquals("Number of indexed files is not correct", 2, index.fileCount());
+		assertTrue("File is not a candidate for its contents", index.candidates("beta").contains(file1));
+		assertFalse("File is a candidate for other contents", index.candidates("beta").contains(file2));
+		assertTrue("Missing text should have no candidates", index.candidates("delta").isEmpty());
+		assertNull("Short text should not be looked up", index.candidates("ga"));
+	}
+
+	/**
+	 * Test that the index follows changes to contents and files
+	 */
+	@Test
+	public void testUpdate() throws Exception {
+
+		// Setup
+		ContentIndex index = root.getContentIndex();
+		file1.setContents("replaced");
+		file2.appendContents("delta\nepsilon");
+		ShellFile file3 = new ShellFile("file3");
+		file3.setContents("zeta");
+		folder.addFile(file3);
+
+		// Test 1
+		assertTrue("Replaced contents are still indexed", index.candidates("beta").isEmpty());
+		assertTrue("New contents are not indexed", index.candidates("replaced").contains(file1));
+		assertTrue("Appended contents are not indexed", index.candidates("epsilon").contains(file2));
+		assertTrue("Added file is not indexed", index.candidates("zeta").contains(file3));
+		assertTrue("Text spanning lines should not be indexed", index.candidates("a\nd").isEmpty());
+
+		// Setup 2
+		root.removeDirectory("folder");
+
+		// Test 2
+		assertEquals("Files of removed directory are still indexed", 1, index.fileCount());
+		assertTrue("Removed file is still a candidate", index.candidates("zeta").isEmpty());
+	}
+
+	/**
+	 * Test that the index is saved and loaded with the tree
+	 */
+	@Test
+	public void testSerialization() throws Exception {
+
+		// Setup
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(folder);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		ShellDirectory loaded = (ShellDirectory) ((ShellDirectory) in.readObject()).getRoot();
+		in.close();
+
+		// Test
+		ShellFile loadedFile = loaded.getFile("folder").getParent().getFile("file1");
+		Set<ShellFile> candidates = loaded.getContentIndex().candidates("alpha");
+		assertEquals("Loaded index has the wrong number of candidates", 1, candidates.size());
+		assertTrue("Loaded index does not refer to the loaded files", candidates.contains(loadedFile));
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testContentIndex.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
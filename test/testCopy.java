@@ -147,6 +147,104 @@ public class testCopy {
 		assertEquals("Failed to copy root folder to sub-directory","root file", clone5.getName());
 	}
 	
+	/**
+	 * Test that a copied directory and its original can be changed
+	 * independently, at any depth, before or after the copy is read
+	 * @throws Exception
+	 */
+	@Test
+	public void test_copyOnWrite() throws Exception {
+		
+		shell.setWorkDir(root);
+		DirectoryNavigator.getFile("/Folder3/Folder4/Folder5/New_File", root).setContents("old");
+		c.runCommand("cp /Folder3 /Folder1".split(" "), shell);
+		
+		// Change the original deep down before the copy is read
+		ShellFile original = DirectoryNavigator.getFile("/Folder3/Folder4/Folder5/New_File", root);
+		original.setContents("new");
+		((Directory) DirectoryNavigator.getFile("/Folder3/Folder4", root)).addFile(new ShellFile("added"));
+		DirectoryNavigator.getFile("/Folder3/Folder4/Folder5", root).setName("renamed");
+		
+		ShellFile copy = DirectoryNavigator.getFile("/Folder1/Folder3/Folder4/Folder5/New_File", root);
+		assertEquals("Copy changed with original", "old", copy.toString());
+		assertEquals("Copy changed with original", "Folder5",
+				DirectoryNavigator.getFile("/Folder1/Folder3/Folder4", root).toString());
+		assertEquals("Original not changed", "added\nrenamed",
+				DirectoryNavigator.getFile("/Folder3/Folder4", root).toString());
+		
+		// Change the copy after it was read
+		copy.appendContents("more");
+		assertEquals("Copy not changed", "old\nmore", copy.toString());
+		assertEquals("Original changed with copy", "new", original.toString());
+	}
+	
+	/**
+	 * Test copying a copy, and removing from the original afterwards
+	 * @throws Exception
+	 */
+	@Test
+	public void test_copyOfCopy() throws Exception {
+		
+		shell.setWorkDir(root);
+		c.runCommand("cp /Folder1 /Folder3".split(" "), shell);
+		c.runCommand(new String[] {"cp", "/Folder3/Folder1", "/Folder 6/Folder1"}, shell);
+		((Directory) DirectoryNavigator.getFile("/Folder1", root)).removeFile("mix");
+		
+		assertEquals("Original not changed", "Folder2",
+				DirectoryNavigator.getFile("/Folder1", root).toString());
+		assertEquals("Copy changed with original", "Folder2\nmix",
+				DirectoryNavigator.getFile("/Folder3/Folder1", root).toString());
+		assertEquals("Copy of copy changed with original", "Folder2\nmix",
+				DirectoryNavigator.getFile("/Folder 6/Folder1/Folder1", root).toString());
+		assertEquals("Copied file has wrong path", "/Folder 6/Folder1/Folder1/mix",
+				DirectoryNavigator.getFile("/Folder 6/Folder1/Folder1/mix", root).getPath());
+	}
+	
+	/**
+	 * Test copying a tree deeper than the call stack, and changing
+	 * the bottom of the original
+	 * @throws Exception
+	 */
+	@Test
+	public void test_copyDeepTree() throws Exception {
+		
+		shell.setWorkDir(root);
+		directoryMap.get("subDir1A").addDirectory(DeepTree.build(DeepTree.DEPTH));
+		c.runCommand("cp /Folder1/d /Folder3".split(" "), shell);
+		
+		DeepTree.bottomOf(directoryMap.get("subDir1A")).setContents("changed");
+		ShellFile copy = DeepTree.bottomOf((Directory) DirectoryNavigator.getFile("/Folder3", root));
+		assertEquals("Copy changed with original", "found at the bottom", copy.toString());
+	}
+	
+	/**
+	 * Test that a copy is still filled before its original changes when
+	 * the original is moved to another tree, or out of any tree
+	 * @throws Exception
+	 */
+	@Test
+	public void test_copyOnWriteAfterMove() throws Exception {
+		
+		ShellDirectory other = new ShellDirectory("/");
+		ShellDirectory original = new ShellDirectory("original");
+		ShellFile file = new ShellFile("file");
+		file.setContents("old");
+		original.addFile(file);
+		other.addDirectory(original);
+		directoryMap.get("subDir1A").addDirectory((Directory) original.copy());
+		
+		other.moveFile("original", directoryMap.get("mDir"));
+		file.setContents("new");
+		ShellFile copy = DirectoryNavigator.getFile("/Folder1/original/file", root);
+		assertEquals("Copy changed with moved original", "old", copy.toString());
+		
+		directoryMap.get("subDir1B").addDirectory((Directory) original.copy());
+		directoryMap.get("mDir").removeDirectory("original");
+		original.getFile("file").setContents("newer");
+		copy = DirectoryNavigator.getFile("/Folder3/original/file", root);
+		assertEquals("Copy changed with removed original", "new", copy.toString());
+	}
+	
 	/**
 	 * Helper function that creates HashMap of
 	 * directories for main tests
@@ -179,6 +179,49 @@ public class testDirectoryNavigator {
 		}
     }
 
+	/**
+	 * Test the path resolution cache in DirectoryNavigator
+	 */
+	@Test
+	public void testPathCache() throws JShellException {
+		
+		DirectoryNavigator.invalidateCache();
+		DirectoryNavigator.resetCacheStatistics();
+		
+		// First resolution misses, second resolution hits
+		ShellFile file1 = DirectoryNavigator.getFile("Folder2/file2", map.get("d1"));
+		ShellFile file2 = DirectoryNavigator.getFile("Folder2/file2", map.get("d1"));
+		Assert.assertSame(file1, file2);
+		Assert.assertEquals(1, DirectoryNavigator.getCacheMisses());
+		Assert.assertEquals(1, DirectoryNavigator.getCacheHits());
+		
+		// Removing the file invalidates the cached resolution
+		map.get("d2").removeFile("file2");
+		Assert.assertFalse(DirectoryNavigator.exists("Folder2/file2", map.get("d1")));
+		long misses = DirectoryNavigator.getCacheMisses();
+		try {
+			DirectoryNavigator.getFile("Folder2/file2", map.get("d1"));
+			Assert.fail("Removed file should not be resolved");
+		} catch (DirectoryException e) {
+			Assert.assertEquals(misses + 1, DirectoryNavigator.getCacheMisses());
+		}
+	}
+
+	/**
+	 * Test resolve method in DirectoryNavigator
+	 */
+	@Test
+	public void testResolve() throws JShellException {
+		
+		// Dots are resolved during the walk, even in absolute paths
+		ResolvedPath resolved = DirectoryNavigator.resolve("/Folder3/../Folder1/./Folder2/file2", map.get("d5"), false);
+		Assert.assertEquals("file2", resolved.getFile().getName());
+		Assert.assertEquals("/Folder1/Folder2/file2", resolved.getPath());
+		
+		// A file cannot be traversed
+		Assert.assertFalse(DirectoryNavigator.exists("/file0/Folder1", map.get("d0")));
+	}
+
 	public static void main(String[] args) {
 		Result result = JUnitCore.runClasses(testDirectoryNavigator.class);
 		for (Failure failure : result.getFailures()) {
@@ -0,0 +1,89 @@
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import src.commands.DiskUsage;
+import src.filesys.*;
+import src.shell.JShell;
+
+public class testDiskUsage {
+
+	JShell shell;
+	DiskUsage du;
+	ShellFile file1;
+	ShellFile file2;
+
+	@Before
+	public void setUp() throws Exception {
+		shell = new JShell();
+		du = new DiskUsage();
+
+		Directory root = shell.getWorkDir();
+		ShellDirectory folder = new ShellDirectory("A", root);
+		root.addDirectory(folder);
+
+		file1 = new ShellFile("log");
+		file2 = new ShellFile("config");
+		root.addFile(file1);
+		folder.addFile(file2);
+
+		file1.setContents("first line");
+		file1.appendContents("second line");
+		file2.setContents("key=value");
+	}
+
+	/**
+	 * Test that every file is reported, followed by the total
+	 */
+	@Test
+	public void testReport() {
+
+		// Setup
+		long bytes1 = file1.getContents().memoryUsage();
+		long bytes2 = file2.getContents().memoryUsage();
+		String expected = bytes2 + "\t/A/config\n" + bytes1 + "\t/log\n" + (bytes1 + bytes2) + "\ttotal";
+
+		// Test
+		assertEquals("Report of working directory is not correct", expected,
+				du.runCommand(new String[]{"du"}, shell));
+		assertEquals("Report of a single file is not correct", bytes2 + "\t/A/config\n" + bytes2 + "\ttotal",
+				du.runCommand(new String[]{"du", "A/config"}, shell));
+	}
+
+	/**
+	 * Test that -c compacts the contents and reports less memory
+	 */
+	@Test
+	public void testCompact() {
+
+		// Setup
+		long before = file1.getContents().memoryUsage();
+		du.runCommand(new String[]{"du", "-c", "log"}, shell);
+
+		// Test
+		assertTrue("Contents were not compacted", file1.getContents().isCompact());
+		assertTrue("Compacted contents do not use less memory", file1.getContents().memoryUsage() < before);
+		assertEquals("Compacted contents have changed", "first line\nsecond line", file1.toString());
+	}
+
+	/**
+	 * Test that a missing path is reported as an error
+	 */
+	@Test
+	public void testMissing() {
+		assertEquals("Missing path is not reported", "Error: nothing - No such file or directory exists\n0\ttotal",
+				du.runCommand(new String[]{"du", "nothing"}, shell));
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testDiskUsage.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
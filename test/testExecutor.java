@@ -0,0 +1,200 @@
+/**
+ * This JUnit 4 class tests Executor class, with shells running
+ * commands at the same time on separate and shared trees
+ * @version 1.0
+ */
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import src.filesys.*;
+import src.shell.*;
+
+public class testExecutor {
+
+	private static final int SHELLS = 8;
+	private static final int ROUNDS = 200;
+
+	private Executor executor;
+	private List<String> failures;
+
+	@Before
+	public void setUp() {
+		executor = new Executor();
+		failures = Collections.synchronizedList(new ArrayList<String>());
+	}
+
+	/**
+	 * Test running a command, and a command that does not exist
+	 */
+	@Test
+	public void testRunCommand() {
+		JShell shell = new JShell();
+		assertEquals("", executor.runCommand(new String[]{"mkdir", "a"}, shell));
+		assertEquals("a", executor.runCommand(new String[]{"ls"}, shell));
+		assertEquals("nope: command not found", executor.runCommand(new String[]{"nope"}, shell));
+		assertEquals("", executor.runCommand(new String[]{}, shell));
+	}
+
+	/**
+	 * Test that shells on trees of their own never see the output
+	 * or errors of each other
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSeparateTrees() throws InterruptedException {
+		Thread[] threads = new Thread[SHELLS];
+		for (int i = 0; i < SHELLS; i++) {
+			final String name = "shell" + i;
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					JShell shell = new JShell();
+					for (int round = 0; round < ROUNDS; round++) {
+						String dir = name + "_" + round;
+						check(executor.runCommand(new String[]{"mkdir", dir}, shell), "");
+						check(executor.runCommand(new String[]{"echo", name, ">", dir + "/file"}, shell), "");
+						check(executor.runCommand(new String[]{"cat", dir + "/file"}, shell), name);
+						check(executor.runCommand(new String[]{"ls", dir}, shell), "file");
+						check(executor.runCommand(new String[]{"cat", dir + "/missing"}, shell),
+								"Error: " + dir + "/missing - No such file or directory exists");
+					}
+				}
+			});
+		}
+		runAll(threads);
+		assertEquals(new ArrayList<String>(), failures);
+	}
+
+	/**
+	 * Test that shells sharing a tree can all change it at the same time
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSharedTree() throws InterruptedException {
+		final Directory root = new ShellDirectory();
+		Thread[] threads = new Thread[SHELLS];
+		for (int i = 0; i < SHELLS; i++) {
+			final String dir = "/shell" + i;
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					JShell shell = new JShell();
+					shell.setWorkDir(root);
+					check(executor.runCommand(new String[]{"mkdir", dir}, shell), "");
+					for (int round = 0; round < ROUNDS; round++) {
+						check(executor.runCommand(new String[]{"echo", "text", ">", dir + "/f" + round}, shell), "");
+						executor.runCommand(new String[]{"ls", "-R"}, shell);
+					}
+					check(executor.runCommand(new String[]{"find", "f1[0-9]*", dir}, shell).split("\n").length + "",
+							"111");
+				}
+			});
+		}
+		runAll(threads);
+		assertEquals(new ArrayList<String>(), failures);
+
+		for (int i = 0; i < SHELLS; i++) {
+			assertEquals(ROUNDS, ((Directory) root.getFile("shell" + i)).length());
+		}
+	}
+
+	/**
+	 * Test passing the output of commands on to cat and grep
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testPipeline() throws DirectoryException {
+		JShell shell = new JShell();
+		Directory root = shell.getWorkDir();
+		ShellFile file = new ShellFile("file");
+		file.setContents("apple\nbanana\ncherry");
+		root.addFile(file);
+		root.addDirectory(new ShellDirectory("apples"));
+
+		assertEquals("banana\n", executor.runCommand(new String[]{"cat", "file", "|", "grep", "an"}, shell));
+		assertEquals("apples\nfile", executor.runCommand(new String[]{"ls", "|", "cat"}, shell));
+		assertEquals("/apples/\n", executor.runCommand(
+				new String[]{"find", "app.*", "/", "|", "grep", "-e", "les", "|", "cat"}, shell));
+
+		// Errors of every stage are shown, and only the output of the last
+		assertEquals("Error: nofile - No such file or directory exists\napple\n",
+				executor.runCommand(new String[]{"cat", "nofile", "file", "|", "grep", "pp"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"cat", "file", "|", "grep", "an", ">", "out"}, shell));
+		assertEquals("banana", root.getFile("out").toString());
+
+		assertEquals("Error: Missing command in pipeline",
+				executor.runCommand(new String[]{"ls", "|", "|", "cat"}, shell));
+		assertEquals("nope: command not found",
+				executor.runCommand(new String[]{"ls", "|", "nope"}, shell));
+	}
+
+	/**
+	 * Test a pipeline carrying more output than its buffers hold,
+	 * including to a stage which does not read it
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testLargePipeline() throws DirectoryException {
+		JShell shell = new JShell();
+		Directory root = shell.getWorkDir();
+		StringBuilder contents = new StringBuilder();
+		for (int i = 0; i < 200000; i++) {
+			contents.append("line ").append(i).append('\n');
+		}
+		ShellFile big = new ShellFile("big");
+		big.setContents(contents.toString());
+		root.addFile(big);
+
+		String matches = executor.runCommand(new String[]{"cat", "big", "|", "grep", "99999$"}, shell);
+		assertEquals("line 99999\nline 199999\n", matches);
+		assertEquals(contents.toString(), executor.runCommand(new String[]{"cat", "big", "|", "cat"}, shell));
+		assertEquals("big", executor.runCommand(new String[]{"cat", "big", "|", "ls"}, shell));
+	}
+
+	/**
+	 * Test piping a file with more chunks than the pipe holds into
+	 * a stage appending to the same file
+	 */
+	@Test(timeout = 20000)
+	public void testPipelineIntoSource() {
+		JShell shell = new JShell();
+		executor.runCommand(new String[]{"echo", "start", ">", "f"}, shell);
+		for (int i = 0; i < 200; i++) {
+			executor.runCommand(new String[]{"echo", "line" + i, ">>", "f"}, shell);
+		}
+		String before = executor.runCommand(new String[]{"cat", "f"}, shell);
+
+		assertEquals("", executor.runCommand(new String[]{"cat", "f", "|", "cat", ">>", "f"}, shell));
+		assertEquals(before + "\n" + before, executor.runCommand(new String[]{"cat", "f"}, shell));
+	}
+
+	private void check(String actual, String expected) {
+		if (!actual.equals(expected)) {
+			failures.add("expected <" + expected + "> but was <" + actual + ">");
+		}
+	}
+
+	private static void runAll(Thread[] threads) throws InterruptedException {
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testExecutor.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
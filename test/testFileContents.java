@@ -0,0 +1,203 @@
+package test;
+
+import src.filesys.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+public class testFileContents {
+
+	FileContents contents;
+
+	@Before
+	public void setUp() {
+		contents = new FileContents();
+	}
+
+	/**
+	 * Test setting and appending contents
+	 */
+	@Test
+	public void testAppend() {
+
+		// Setup
+		contents.set("Line 1");
+		contents.append("\nLine 2");
+		contents.append("\nLine 3");
+
+		// Test
+		assertEquals("Length is not the sum of the chunks", 20, contents.length());
+		assertEquals("Joined contents are not correct", "Line 1\nLine 2\nLine 3", contents.toString());
+		assertEquals("Joining twice should not change the contents", "Line 1\nLine 2\nLine 3", contents.toString());
+	}
+
+	/**
+	 * Test that a copy does not change with the original
+	 */
+	@Test
+	public void testCopy() {
+
+		// Setup
+		contents.set("Original");
+		FileContents copy = new FileContents(contents);
+		contents.append(" changed");
+
+		// Test
+		assertEquals("Copy should not see later appends", "Original", copy.toString());
+	}
+
+	/**
+	 * Test that lines are read across chunks the way
+	 * String.split("\n") would split the joined contents
+	 */
+	@Test
+	public void testLines() {
+
+		// Test 1
+		assertEquals("Empty contents should have one empty line", Arrays.asList(""), lines());
+
+		// Setup 2
+		contents.set("first li");
+		contents.append("ne\n\nsecond");
+		contents.append(" line\n");
+		contents.append("\n");
+
+		// Test 2
+		String[] expected = contents.toString().split("\n");
+		assertEquals("Lines are not split as split() does", Arrays.asList(expected), lines());
+	}
+
+	/**
+	 * Test that compacted contents read back the same,
+	 * including text appended after compacting
+	 */
+	@Test
+	public void testCompact() {
+
+		// Setup
+		contents.set("ascii line\n");
+		contents.append("caf\u00e9");
+		contents.compact();
+		FileContents wide = new FileContents();
+		wide.set("\u65e5\u672c\nline");
+		wide.compact();
+
+		// Test 1
+		assertTrue("Contents are not compact", contents.isCompact());
+		assertEquals("Latin-1 contents have changed", "ascii line\ncaf\u00e9", contents.toString());
+		assertEquals("UTF-8 contents have changed", "\u65e5\u672c\nline", wide.toString());
+		assertEquals("Lines of compacted contents are not correct", Arrays.asList("\u65e5\u672c", "line"), lines(wide));
+
+		// Setup 2
+		contents.append(" appended");
+
+		// Test 2
+		assertFalse("Appended contents are still compact", contents.isCompact());
+		assertEquals("Appended contents are not correct", "ascii line\ncaf\u00e9 appended", contents.toString());
+		assertEquals("Length is not correct after compacting", 24, contents.length());
+	}
+
+	/**
+	 * Test that compacting never makes the contents larger, whether
+	 * they are mostly ASCII or mostly characters outside Latin-1
+	 */
+	@Test
+	public void testCompactSize() {
+
+		// Setup
+		StringBuilder cjk = new StringBuilder();
+		StringBuilder mixed = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			cjk.append('\u65e5');
+			mixed.append("text ");
+		}
+		mixed.append('\u65e5');
+		contents.set(cjk.toString());
+		FileContents other = new FileContents();
+		other.set(mixed.toString());
+		long cjkBefore = contents.memoryUsage();
+		long mixedBefore = other.memoryUsage();
+		contents.compact();
+		other.compact();
+
+		// Test
+		assertTrue("CJK contents grew when compacted", contents.memoryUsage() <= cjkBefore);
+		assertTrue("Mixed contents did not shrink", other.memoryUsage() < mixedBefore / 2 + 100);
+		assertEquals("CJK contents have changed", cjk.toString(), contents.toString());
+		assertEquals("Mixed contents have changed", mixed.toString(), other.toString());
+	}
+
+	/**
+	 * Test reading compacted contents a piece at a time, in each of
+	 * their encodings, with lines and characters across the pieces
+	 */
+	@Test
+	public void testCompactPieces() throws Exception {
+
+		String[] samples = {"line", "caf\u00e9 line", "\ud83d\ude00 line", "\u65e5\u672c\u65e5"};
+		for (String sample : samples) {
+
+			// Setup
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 3000; i++) {
+				text.append(sample).append(i).append((i % 7 == 0) ? "\n\n" : "\n");
+			}
+			for (int i = 0; i < 5000; i++) {
+				text.append(sample);
+			}
+			contents.set(text.toString());
+			contents.compact();
+			final int[] appends = new int[1];
+			final StringBuilder written = new StringBuilder();
+			Appendable out = new Appendable() {
+				public Appendable append(CharSequence csq) {
+					appends[0]++;
+					written.append(csq);
+					return this;
+				}
+				public Appendable append(CharSequence csq, int start, int end) {
+					return append(csq.subSequence(start, end));
+				}
+				public Appendable append(char c) {
+					return append(String.valueOf(c));
+				}
+			};
+			contents.appendTo(out);
+
+			// Test
+			assertEquals("Lines of compacted contents are not correct",
+					Arrays.asList(text.toString().split("\n")), lines());
+			assertEquals("Compacted contents written are not correct", text.toString(), written.toString());
+			assertTrue("Compacted contents were not written in pieces", appends[0] > 1);
+		}
+	}
+
+	private List<String> lines() {
+		return lines(contents);
+	}
+
+	private List<String> lines(FileContents contents) {
+		List<String> lines = new ArrayList<String>();
+		Iterator<String> iterator = contents.lineIterator();
+		while (iterator.hasNext()) {
+			lines.add(iterator.next());
+		}
+		return lines;
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testFileContents.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
@@ -7,7 +7,9 @@ import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
 import java.util.HashMap;
 import src.filesys.*;
+import src.shell.Executor;
 import src.shell.JShell;
+import src.shell.OutputSink;
 import src.commands.*;
 
 
@@ -20,8 +22,6 @@ public class testFind {
 	@Before
 	public void setup() {
 		shell.setWorkDir(map.get("mDir"));
-		Command.errors = "";
-		Command.result = "";
 	}
 	
 	@Test
@@ -98,6 +98,202 @@ public class testFind {
 		assertEquals("","/Folder1/mix/",c.runCommand(cmd2, shell));				
 	}
 	
+	@Test
+	public void testRunCommand7() throws DirectoryException {
+		
+		//Test7 - Find with the name index gives the same paths
+		String[] regexes = {"^Folder", "^Folder[1-4]", "^mi?x", "^root", "^Fold+er 6", "[a-z]+"};
+		String[] expected = new String[regexes.length];
+		for (int i = 0; i < regexes.length; i++) {
+			expected[i] = f.runCommand(new String[]{"find", regexes[i], "/"}, shell);
+		}
+		
+		Executor.getCommand("index").runCommand(new String[]{"index", "-n", "on"}, shell);
+		for (int i = 0; i < regexes.length; i++) {
+			assertEquals("Name index changed the result of " + regexes[i], expected[i],
+					f.runCommand(new String[]{"find", regexes[i], "/"}, shell));
+		}
+		
+		// Renamed folders are found under their new name
+		map.get("subDir2B").setName("Renamed");
+		assertEquals("", "/Folder3/Renamed/", f.runCommand(new String[]{"find", "^Ren", "/"}, shell));
+		Executor.getCommand("index").runCommand(new String[]{"index", "-n", "off"}, shell);
+	}
+	
+	@Test
+	public void testRunCommand8() throws DirectoryException {
+		
+		//Test8 - Find through a shortcut, with and without the name index
+		shell.setWorkDir(map.get("subDir1A"));
+		Executor.getCommand("ln").runCommand(new String[]{"ln", "link", "/Folder3"}, shell);
+		shell.setWorkDir(map.get("mDir"));
+		String expected = "/Folder1/link/Folder4/Folder5/";
+		
+		assertEquals("", expected, f.runCommand(new String[]{"find", "^Folder5", "/Folder1"}, shell));
+		Executor.getCommand("index").runCommand(new String[]{"index", "-n", "on"}, shell);
+		assertEquals("", expected, f.runCommand(new String[]{"find", "^Folder5", "/Folder1"}, shell));
+		Executor.getCommand("index").runCommand(new String[]{"index", "-n", "off"}, shell);
+	}
+	
+	@Test
+	public void testRunCommand9() {
+		
+		//Test9 - Parallel find gives the sequential paths
+		String sequential = f.runCommand(new String[]{"find", "[a-z]+", "/"}, shell);
+		assertEquals("", sequential, f.runCommand(new String[]{"find", "-P4", "[a-z]+", "/"}, shell));
+		assertEquals("", sequential, f.runCommand(new String[]{"find", "-P", "[a-z]+", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-P99999999999", "[a-z]+", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-P40000", "[a-z]+", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand10() {
+		
+		//Test10 - Find stops after the maximum number of matches
+		String expected = "/Folder 6/\n/Folder 6/Folder1/\n/Folder1/";
+		assertEquals("", expected, f.runCommand(new String[]{"find", "-max", "3", "[a-z]+", "/"}, shell));
+		assertEquals("", expected, f.runCommand(new String[]{"find", "-max", "3", "-P2", "[a-z]+", "/"}, shell));
+		assertEquals("", "/Folder1/mix/", f.runCommand(new String[]{"find", "-P2", "-max", "1", "mix", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage, f.runCommand(new String[]{"find", "-max", "0", "mix", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand11() {
+		
+		//Test11 - Find objects of one type
+		shell.setWorkDir(map.get("subDir1A"));
+		Executor.getCommand("ln").runCommand(new String[]{"ln", "link", "/Folder3"}, shell);
+		shell.setWorkDir(map.get("mDir"));
+		
+		assertEquals("", "/Folder1/link/Folder4/Folder5/New_File/\n/Folder1/mix/\n" +
+				"/Folder3/Folder4/Folder5/New_File/\n/root file/",
+				f.runCommand(new String[]{"find", "-type", "f", ".", "/"}, shell));
+		assertEquals("", "/Folder1/link/",
+				f.runCommand(new String[]{"find", "-type", "l", ".", "/"}, shell));
+		assertEquals("", "/Folder1/link/Folder4/\n/Folder3/Folder4/",
+				f.runCommand(new String[]{"find", "-type", "d", "4", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-type", "x", ".", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand12() {
+		
+		//Test12 - Find files by size
+		ShellFile mix = map.get("subDir1A").getFile("mix");
+		mix.setContents("twelve chars");
+		
+		assertEquals("", "/Folder1/mix/", f.runCommand(new String[]{"find", "-size", "12", ".", "/"}, shell));
+		assertEquals("", "/Folder1/mix/", f.runCommand(new String[]{"find", "-size", "+11c", ".", "/"}, shell));
+		assertEquals("", "/Folder3/Folder4/Folder5/New_File/\n/root file/",
+				f.runCommand(new String[]{"find", "-type", "f", "-size", "-1", ".", "/"}, shell));
+		assertEquals("", "/Folder1/mix/\n/Folder3/Folder4/Folder5/New_File/\n/root file/",
+				f.runCommand(new String[]{"find", "-type", "f", "-size", "-1k", ".", "/"}, shell));
+		
+		// Sizes too large to hold are invalid
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-size", "99999999999999999999", ".", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-size", "9999999999999999k", ".", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand13() {
+		
+		//Test13 - Find within depth limits
+		assertEquals("", "/Folder 6/\n/Folder1/\n/Folder3/\n/root file/",
+				f.runCommand(new String[]{"find", "-maxdepth", "1", "[a-z]+", "/"}, shell));
+		assertEquals("", "/Folder3/Folder4/Folder5/\n/Folder3/Folder4/Folder5/New_File/",
+				f.runCommand(new String[]{"find", "-mindepth", "3", "[a-z]+", "/"}, shell));
+		assertEquals("", "/Folder 6/Folder1/\n/Folder1/Folder2/\n/Folder1/mix/\n/Folder3/Folder4/",
+				f.runCommand(new String[]{"find", "-mindepth", "2", "-maxdepth", "2", "-P2", "[a-z]+", "/"}, shell));
+		assertEquals("", Command.invalidArgsMessage,
+				f.runCommand(new String[]{"find", "-maxdepth", "99999999999", "[a-z]+", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand14() {
+		
+		//Test14 - Find objects changed after another or recently
+		map.get("subDir2A").getParent().getFile("mix").setContents("changed");
+		
+		assertEquals("", "/Folder1/mix/",
+				f.runCommand(new String[]{"find", "-newer", "/root file", "-type", "f", ".", "/"}, shell));
+		assertEquals("", "/Folder1/mix/\n/Folder3/Folder4/Folder5/New_File/\n/root file/",
+				f.runCommand(new String[]{"find", "-mmin", "-5", "-type", "f", ".", "/"}, shell));
+		assertEquals("", "", f.runCommand(new String[]{"find", "-mmin", "+5", ".", "/"}, shell));
+		assertEquals("", "Error: nothing - No such file or directory exists",
+				f.runCommand(new String[]{"find", "-newer", "/nothing", ".", "/"}, shell));
+	}
+	
+	@Test
+	public void testRunCommand15() throws DirectoryException {
+		
+		//Test15 - Find the bottom of a tree deeper than the call stack
+		map.get("mDir").addDirectory(DeepTree.build(DeepTree.DEPTH));
+		
+		String result = f.runCommand(new String[]{"find", "^bot", "/"}, shell);
+		assertTrue(result.endsWith("/d/d/bottom/"));
+		assertEquals(2 * DeepTree.DEPTH + "/bottom/".length(), result.length());
+	}
+	
+	@Test
+	public void testRunCommand16() throws DirectoryException {
+		
+		//Test16 - Matches are written to the sink in batches while searching,
+		//and the file the output is redirected to is never matched
+		ShellDirectory many = new ShellDirectory("Many", map.get("mDir"));
+		map.get("mDir").addDirectory(many);
+		for (int i = 0; i < 2000; i++) {
+			many.addFile(new ShellFile("m" + i));
+		}
+		final StringBuilder output = new StringBuilder();
+		final int[] writes = new int[1];
+		OutputSink sink = new OutputSink() {
+			public void write(String text) {
+				output.append(text);
+				writes[0]++;
+			}
+			public void error(String text) {
+				fail(text);
+			}
+		};
+		
+		f.runCommand(new String[]{"find", "^m[0-9]", "/Many"}, shell, sink);
+		assertTrue(writes[0] > 1);
+		assertEquals(f.runCommand(new String[]{"find", "-P4", "^m[0-9]", "/Many"}, shell),
+				output.toString());
+		assertTrue(output.toString().startsWith("/Many/m0/\n/Many/m1/\n"));
+		
+		Executor executor = new Executor();
+		assertEquals("", executor.runCommand(new String[]{"find", "^out", "/", ">", "/out"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"cat", "/out"}, shell));
+		assertEquals("/out/", f.runCommand(new String[]{"find", "^out", "/"}, shell));
+	}
+	
+	@Test(timeout = 10000)
+	public void testRunCommand17() {
+		
+		//Test17 - Shortcuts to folders the search is already in are
+		//listed, but not followed
+		shell.setWorkDir(map.get("subDir1A"));
+		Executor.getCommand("ln").runCommand(new String[]{"ln", "up", "/"}, shell);
+		shell.setWorkDir(map.get("subDir1B"));
+		Executor.getCommand("ln").runCommand(new String[]{"ln", "over", "/Folder1"}, shell);
+		shell.setWorkDir(map.get("mDir"));
+		
+		assertEquals("", "", f.runCommand(new String[]{"find", "zzz", "/"}, shell));
+		assertEquals("", "", f.runCommand(new String[]{"find", "-P2", "zzz", "/"}, shell));
+		String links = "/Folder1/up/\n/Folder3/over/\n/Folder3/over/up/";
+		assertEquals("", links, f.runCommand(new String[]{"find", "-type", "l", ".", "/"}, shell));
+		assertEquals("", links, f.runCommand(new String[]{"find", "-P2", "-type", "l", ".", "/"}, shell));
+		assertEquals("", "/Folder3/over/\n/Folder3/over/up/\n/Folder3/over/up/Folder1/up/\n" +
+				"/Folder3/over/up/Folder3/over/",
+				f.runCommand(new String[]{"find", "-type", "l", ".", "/Folder3"}, shell));
+	}
+	
 	/**
 	 * Helper function that creates HashMap of
 	 * directories for main tests
@@ -141,6 +141,127 @@ public class testGrep {
 		Assert.assertEquals(expected, result);
 	}
 	
+	@Test
+	public void testGrepParallel() {
+		
+		// Test that the parallel grep gives the sequential output
+		String sequential = grepCmd.runCommand(shell.parseString("grep -R [0-9] /"), shell);
+		String parallel = grepCmd.runCommand(shell.parseString("grep -R -P4 [0-9] /"), shell);
+		String defaultThreads = grepCmd.runCommand(shell.parseString("grep -P -R inside a"), shell);
+		
+		Assert.assertEquals(sequential, parallel);
+		Assert.assertEquals(grepCmd.runCommand(shell.parseString("grep -R inside a"), shell), defaultThreads);
+		
+		// Thread counts which are too large are invalid
+		Assert.assertEquals(Command.invalidArgsMessage,
+				grepCmd.runCommand(shell.parseString("grep -R -P99999999999 [0-9] /"), shell));
+		Assert.assertEquals(Command.invalidArgsMessage,
+				grepCmd.runCommand(shell.parseString("grep -R -P40000 [0-9] /"), shell));
+	}
+	
+	@Test
+	public void testGrepLiteral() {
+		
+		// Test a pattern without metacharacters
+		String regx = "grep -R \"of xyz in\" b";
+		String result = grepCmd.runCommand(shell.parseString(regx), shell);
+		
+		String expected = 
+				"/b/b1/b1A/xyz/info: inside of xyz in 0001\n"
+				+ "/b/b1/b1A/xyz/info: inside of xyz in 0001 MULTILINE\n"
+				+ "/b/b1/b1B/xyz/info: inside of xyz in right\n";
+		
+		Assert.assertEquals(expected, result);
+	}
+	
+	@Test
+	public void testGrepMultiplePatterns() {
+		
+		// Test literal patterns which overlap each other in the files
+		String[] cmd = {"grep", "-e", "zzzy", "-e", "zz zz", "-e", "yyyy", "-e", "fileC 0031",
+				"fileA", "fileB", "fileC"};
+		String result = grepCmd.runCommand(cmd, shell);
+		
+		String expected = 
+				"/fileA: zzzz zzzz\n"
+				+ "/fileB: yyyy yyyy\n";
+		
+		Assert.assertEquals(expected, result);
+		
+		// Test patterns mixing literals and regexes
+		String regx = "grep -R -e right -e ^content.*3$ /";
+		result = grepCmd.runCommand(shell.parseString(regx), shell);
+		
+		expected = 
+				"/a/a1/a1B/xyz/info: inside of xyz in right\n"
+				+ "/a/a1/a1B/xyz/info: inside of xyz in right MULTILINE\n"
+				+ "/b/b1/b1B/xyz/info: inside of xyz in right\n"
+				+ "/fileC: content of fileC 003\n";
+		
+		Assert.assertEquals(expected, result);
+	}
+	
+	@Test
+	public void testGrepIndexed() {
+		
+		// Test that the content index does not change the output
+		String[] regexes = {"grep -R inside /", "grep -R xyz.in.[lr] /", "grep -R ^content.*0+[23]$ /",
+				"grep -R (MULTI)?LINE /", "grep -R of|zz /", "grep -R -e fileA -e \\d{3}$ /"};
+		String[] expected = new String[regexes.length];
+		for (int i = 0; i < regexes.length; i++)
+			expected[i] = grepCmd.runCommand(shell.parseString(regexes[i]), shell);
+		
+		Executor.getCommand("index").runCommand(new String[]{"index", "on"}, shell);
+		Executor.getCommand("echo").runCommand(shell.parseString("echo \"added later 001\" >> fileC"), shell);
+		expected[5] += "/fileC: added later 001\n";
+		
+		for (int i = 0; i < regexes.length; i++)
+			Assert.assertEquals(expected[i], grepCmd.runCommand(shell.parseString(regexes[i]), shell));
+	}
+	
+	@Test
+	public void testGrepInvalidRegex() {
+		
+		// Test that an invalid regex is reported once
+		String regx = "grep -R [0-9 /";
+		String result = grepCmd.runCommand(shell.parseString(regx), shell);
+		
+		Assert.assertEquals("Error: [0-9 - Invalid regular expression\n", result);
+	}
+	
+	@Test
+	public void testGrepLargeFile() {
+		
+		// Test a file with many lines, of which only some match
+		StringBuilder contents = new StringBuilder("line 0");
+		for (int i = 1; i < 100000; i++) {
+			contents.append(i % 25000 == 0 ? "\nmatch " : "\nline ").append(i);
+		}
+		Executor.getCommand("echo").runCommand(new String[]{"echo", contents.toString(), ">", "large"}, shell);
+		
+		String regx = "grep ^match large";
+		String result = grepCmd.runCommand(shell.parseString(regx), shell);
+		
+		String expected = 
+				"/large: match 25000\n"
+				+ "/large: match 50000\n"
+				+ "/large: match 75000\n";
+		
+		Assert.assertEquals(expected, result);
+	}
+	
+	@Test
+	public void testGrepDeepTree() throws Exception {
+		
+		// Test a tree deeper than the call stack could recurse into
+		shell.getWorkDir().addDirectory(DeepTree.build(DeepTree.DEPTH));
+		
+		String result = grepCmd.runCommand(shell.parseString("grep -R bottom /d"), shell);
+		
+		Assert.assertTrue(result.endsWith("/d/bottom: found at the bottom\n"));
+		Assert.assertEquals(2 * DeepTree.DEPTH + "/bottom: found at the bottom\n".length(), result.length());
+	}
+	
 	public static void main(String[] args) {
 		Result result = JUnitCore.runClasses(testGrep.class);
 		for (Failure failure : result.getFailures()) {
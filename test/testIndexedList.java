@@ -0,0 +1,164 @@
+package test;
+
+import src.filesys.*;
+
+import java.util.Iterator;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+public class testIndexedList {
+
+	IndexedList fileList;
+	ShellFile file;
+	ShellDirectory dir;
+
+	@Before
+	public void setUp() {
+		fileList = new IndexedList();
+		file = new ShellFile("File1");
+		dir = new ShellDirectory("Dir1", null);
+	}
+
+	/**
+	 * Test the status of a newly created empty list
+	 */
+	@Test
+	public void testEmptyList() {
+		assertEquals("Length of list when empty is not 0", 0, fileList.length());
+		assertTrue("List not isEmpty when length is 0", fileList.isEmpty());
+	}
+
+	/**
+	 * Test the functionality of adding and fetching files
+	 */
+	@Test
+	public void testAddFiles() throws Exception {
+
+		// Setup
+		fileList.addFile(file);
+		fileList.addFile(dir);
+
+		// Test
+		assertEquals("Length of list with 2 files is not 2", 2, fileList.length());
+		assertTrue("List not hasFile when file does exist", fileList.hasFile("File1"));
+		assertTrue("List not hasFile when directory does exist", fileList.hasFile("Dir1"));
+		assertFalse("List hasFile even though file does not exist", fileList.hasFile("Nonexistent File"));
+		assertEquals("Fetched file is not correct with getFile", file, fileList.getFile("File1"));
+		assertEquals("Fetched is not null when file does not exist", null, fileList.getFile("file1"));
+	}
+
+	/**
+	 * Test that adding a file with an existing name fails
+	 */
+	@Test(expected = Exception.class)
+	public void testAddExisting() throws Exception {
+		fileList.addFile(file);
+		fileList.addFile(new ShellFile("File1"));
+	}
+
+	/**
+	 * Test the functionality of removing files
+	 */
+	@Test
+	public void testRemoveFiles() throws Exception {
+
+		// Setup
+		fileList.addFile(file);
+		fileList.addFile(dir);
+		fileList.removeFile("Nonexistent File");
+		fileList.removeFile("File1");
+
+		// Test
+		assertEquals("Length of list after removal is not 1", 1, fileList.length());
+		assertFalse("List hasFile after file was removed", fileList.hasFile("File1"));
+		assertEquals("Removed file shoud have null as parent", null, file.getParent());
+	}
+
+	/**
+	 * Test that iteration follows the case-insensitive ordering
+	 */
+	@Test
+	public void testOrdering() throws Exception {
+
+		// Setup
+		String[] names = {"d", "B", "a", "C", "b"};
+		for (String name : names) {
+			fileList.addFile(new ShellFile(name));
+		}
+
+		// Test
+		String[] expected = {"a", "B", "b", "C", "d"};
+		Iterator<ShellFile> iterator = fileList.iterator();
+		for (String name : expected) {
+			assertEquals("Files are not iterated in sorted order", name, iterator.next().getName());
+		}
+		assertFalse("Iterator has more files than the list", iterator.hasNext());
+	}
+
+	/**
+	 * Test that the iterator reflects files removed
+	 * while it is in use
+	 */
+	@Test
+	public void testLiveIterator() throws Exception {
+		fileList.addFile(new ShellFile("a"));
+		fileList.addFile(new ShellFile("b"));
+		fileList.addFile(new ShellFile("c"));
+		Iterator<ShellFile> iterator = fileList.iterator();
+		iterator.next();
+		fileList.removeFile("b");
+		assertEquals("Iterator returned a removed file", "c", iterator.next().getName());
+		assertFalse("Iterator has more files than the list", iterator.hasNext());
+	}
+
+	/**
+	 * Test that the cursor methods step past removed files
+	 */
+	@Test
+	public void testCursor() throws Exception {
+
+		// Setup
+		fileList.addFile(new ShellFile("a"));
+		fileList.addFile(new ShellFile("b"));
+		fileList.addFile(new ShellFile("c"));
+		ShellFile current = fileList.getFirst();
+		fileList.removeFile(current.getName());
+
+		// Test
+		assertEquals("First file is not correct", "a", current.getName());
+		assertEquals("Next file after a removed file is not correct", "b", fileList.getNext("a").getName());
+		assertEquals("Next file after the last file should be null", null, fileList.getNext("c"));
+	}
+
+	/**
+	 * Test a directory sized list, which the linked list
+	 * could not handle without a stack overflow
+	 */
+	@Test
+	public void testLargeList() throws Exception {
+
+		// Setup
+		int size = 200000;
+		for (int i = size - 1; i >= 0; i--) {
+			fileList.addFile(new ShellFile(String.format("file%06d", i)));
+		}
+
+		// Test
+		assertEquals("Length of large list is not correct", size, fileList.length());
+		assertTrue("Large list does not have a file", fileList.hasFile("file123456"));
+		assertEquals("First file of large list is not correct", "file000000",
+				fileList.iterator().next().getName());
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testIndexedList.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * This JUnit 4 class tests JShell class, running scripts of commands
+ * @version 1.0
+ */
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import src.filesys.*;
+import src.shell.*;
+
+public class testJShell {
+
+	private JShell shell;
+	private StringSink out;
+	private StringWriter report;
+
+	@Before
+	public void setUp() {
+		shell = new JShell();
+		out = new StringSink();
+		report = new StringWriter();
+	}
+
+	/**
+	 * Test running a script, skipping empty lines and comments,
+	 * and reporting the time of each command
+	 * @throws IOException
+	 */
+	@Test
+	public void testRunBatch() throws IOException {
+		String script = "# make a folder\nmkdir a\n\necho text > a/file\ncat a/file\nnope\n";
+		shell.runBatch(new BufferedReader(new StringReader(script)), out, report);
+
+		assertEquals("text", out.getOutput());
+		assertEquals("nope: command not found", out.getErrors());
+		assertTrue(shell.getWorkDir().hasFile("a"));
+
+		String[] lines = report.toString().split("\n");
+		assertEquals(5, lines.length);
+		assertTrue(lines[0].endsWith(" ms  mkdir a"));
+		assertTrue(lines[3].endsWith(" ms  nope"));
+		assertTrue(lines[4].startsWith("4 commands in "));
+	}
+
+	/**
+	 * Test that a script stops at "exit"
+	 * @throws IOException
+	 */
+	@Test
+	public void testRunBatchExit() throws IOException {
+		String script = "mkdir a\nexit\nmkdir b\n";
+		shell.runBatch(new BufferedReader(new StringReader(script)), out, report);
+
+		Directory root = shell.getWorkDir();
+		assertTrue(root.hasFile("a"));
+		assertFalse(root.hasFile("b"));
+		assertTrue(report.toString().contains("1 commands in "));
+	}
+
+	/**
+	 * Test that quoted "|" and ">" are searched for, rather than
+	 * splitting the command into a pipeline or redirecting it
+	 * @throws IOException
+	 */
+	@Test
+	public void testQuotedOperators() throws IOException {
+		String script = "echo a|b > f\ngrep \"|\" f\ngrep \"|\" f | grep \">\"\n";
+		shell.runBatch(new BufferedReader(new StringReader(script)), out, report);
+
+		assertEquals("", out.getErrors());
+		assertEquals("/f: a|b\n", out.getOutput());
+	}
+
+	/**
+	 * Test that arguments other than "-f" and a script are refused with
+	 * the usage, rather than run as a batch or interactively
+	 */
+	@Test
+	public void testUsage() {
+		PrintStream stderr = System.err;
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errors, true));
+		try {
+			JShell.main(new String[]{"-f"});
+			JShell.main(new String[]{"-x", "script"});
+		} finally {
+			System.setErr(stderr);
+		}
+
+		String[] lines = errors.toString().split("\n");
+		assertTrue(lines[0].startsWith("Usage: JShell [-f SCRIPT]"));
+		assertEquals(4, lines.length);
+		assertEquals(lines[0], lines[2]);
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testJShell.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
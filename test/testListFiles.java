@@ -136,6 +136,40 @@ public class testListFiles {
 		
 	}
 	
+	@Test
+	public void testRedirect() throws DirectoryException {
+		
+		// Setup 1
+		Directory root = directorySetUp();
+		shell.setWorkDir(root);
+		((ShellDirectory) root).setContentIndex(new ContentIndex());
+		cmd = new String[]{"ls", "-R", "Dir1", ">", "out"};
+		result = ls.runCommand(cmd, shell);
+		
+		// Test 1: the listing is written to the file, without trailing white space,
+		// and indexed as it is written
+		assertEquals("Redirected ls should print nothing", "", result);
+		ShellFile out = root.getFile("out");
+		assertEquals("/Dir1:\nDir2\n/Dir1/Dir2:\nFile1.txt", out.toString());
+		assertTrue(((ShellDirectory) root).getContentIndex().candidates("File1.txt").contains(out));
+		
+		// Setup 2
+		cmd = new String[]{"ls", "Dir1", "nonexistent", ">>", "out"};
+		result = ls.runCommand(cmd, shell);
+		
+		// Test 2: errors are still printed
+		assertEquals("Error: nonexistent - No such file or directory exists\n", result);
+		assertEquals("/Dir1:\nDir2\n/Dir1/Dir2:\nFile1.txt\nDir2", out.toString());
+		
+		// Setup 3: write to a sink as the listing is produced
+		StringSink sink = new StringSink();
+		ls.runCommand(new String[]{"ls", "-R", "nonexistent", "Dir1/Dir2"}, shell, sink);
+		
+		// Test 3
+		assertEquals("/Dir1/Dir2:\nFile1.txt\n", sink.getOutput());
+		assertEquals("Error: nonexistent - No such file or directory exists\n", sink.getErrors());
+	}
+	
 	private Directory directorySetUp() throws DirectoryException {
 		
 		Directory root = new ShellDirectory();
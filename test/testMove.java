@@ -111,6 +111,35 @@ public class testMove {
 
 	}
 	
+	/**
+	 * Test that mv moves the same object, keeps shortcuts to it and
+	 * to files under it working, and refuses to move a folder into itself
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void test_relink() throws DirectoryException{
+		shell.setWorkDir(root);
+		ShellFile folder4 = DirectoryNavigator.getFile("/Folder3/Folder4", root);
+		ShellShortcut link = new ShellShortcut("link", "/Folder3/Folder4/Folder5", shell);
+		root.addFile(link);
+		
+		//Move a folder: the same object ends up at the destination
+		m.runCommand("mv /Folder3/Folder4 /Folder1/Folder2".split(" "), shell);
+		assertSame("Moved folder was copied", folder4, DirectoryNavigator.getFile("/Folder1/Folder2/Folder4", root));
+		assertEquals("Moved folder has wrong path", "/Folder1/Folder2/Folder4/Folder5/New_File",
+				DirectoryNavigator.getFile("/Folder1/Folder2/Folder4/Folder5/New_File", root).getPath());
+		assertFalse("Failed to remove moved folder", DirectoryNavigator.exists("/Folder3/Folder4", root));
+		
+		//Shortcut to a folder under the moved folder follows it
+		assertEquals("Shortcut lost its target", "/Folder1/Folder2/Folder4/Folder5/New_File",
+				DirectoryNavigator.getFile("/link/New_File", root).getPath());
+		
+		//A folder can't be moved under itself
+		assertEquals("Moved folder into itself", "Error: Cannot copy or move file or folder to self",
+				m.runCommand("mv /Folder1 /Folder1/Folder2/Folder4".split(" "), shell));
+		assertTrue("Folder moved into itself", DirectoryNavigator.exists("/Folder1/Folder2/Folder4", root));
+	}
+	
 	public static void main(String[] args) {
 		Result result = JUnitCore.runClasses(testMove.class);
 		for (Failure failure : result.getFailures()) {
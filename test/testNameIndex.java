@@ -0,0 +1,75 @@
+package test;
+
+import src.filesys.*;
+
+import java.util.Set;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+public class testNameIndex {
+
+	ShellDirectory root;
+	ShellDirectory folder;
+	ShellFile file1;
+	ShellFile file2;
+
+	@Before
+	public void setUp() throws Exception {
+		root = new ShellDirectory("/");
+		folder = new ShellDirectory("logs", root);
+		root.addDirectory(folder);
+
+		file1 = new ShellFile("log1");
+		file2 = new ShellFile("log2");
+		root.addFile(file1);
+		folder.addFile(file2);
+
+		root.setNameIndex(new NameIndex());
+	}
+
+	/**
+	 * Test finding names by prefix
+	 */
+	@Test
+	public void testPrefix() {
+
+		// Setup
+		Set<ShellFile> found = folder.getNameIndex().withPrefix("log");
+
+		// Test
+		assertEquals("Index does not hold every object in the tree", 4, root.getNameIndex().size());
+		assertEquals("Wrong number of names found for prefix", 3, found.size());
+		assertTrue("Directory not found by prefix", found.contains(folder));
+		assertTrue("File not found by prefix", found.contains(file2));
+		assertTrue("Names past the prefix should not be found", root.getNameIndex().withPrefix("logs1").isEmpty());
+	}
+
+	/**
+	 * Test that the index follows renamed and removed files
+	 */
+	@Test
+	public void testUpdate() {
+
+		// Setup
+		NameIndex index = root.getNameIndex();
+		file1.setName("renamed");
+		root.removeDirectory("logs");
+
+		// Test
+		assertTrue("Renamed file not found by its new name", index.withPrefix("ren").contains(file1));
+		assertTrue("Removed and renamed files are still found", index.withPrefix("log").isEmpty());
+		assertEquals("Index size is not correct after removal", 2, index.size());
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testNameIndex.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
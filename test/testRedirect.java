@@ -0,0 +1,150 @@
+/**
+ * This JUnit 4 class tests Redirect class
+ * @version 1.0
+ */
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import src.commands.Command;
+import src.commands.Redirect;
+import src.shell.*;
+
+public class testRedirect {
+
+	/**
+	 * Test finding ">" and ">>", and leaving them and the path out of
+	 * the arguments
+	 */
+	@Test
+	public void testFind() {
+		Redirect redirect = Redirect.find(new String[]{"ls", "-R", ">", "out", "a"});
+		assertEquals("out", redirect.getPath());
+		assertFalse(redirect.isAppend());
+		assertArrayEquals(new String[]{"ls", "-R", "a"}, redirect.getArgs());
+
+		redirect = Redirect.find(new String[]{"echo", "text", ">>", "out"});
+		assertEquals("out", redirect.getPath());
+		assertTrue(redirect.isAppend());
+		assertArrayEquals(new String[]{"echo", "text"}, redirect.getArgs());
+	}
+
+	/**
+	 * Test a missing path, no redirect, and more than one redirect
+	 */
+	@Test
+	public void testFindNone() {
+		Redirect redirect = Redirect.find(new String[]{"ls", ">"});
+		assertEquals("", redirect.getPath());
+		assertArrayEquals(new String[]{"ls"}, redirect.getArgs());
+
+		assertNull(Redirect.find(new String[]{"ls", "a>b"}));
+		assertNull(Redirect.find(new String[]{">", "a"}));
+		assertNull(Redirect.find(new String[]{"ls", ">", "a", ">>", "b"}));
+	}
+
+	/**
+	 * Test that the executor passes the redirect on to the command
+	 */
+	@Test
+	public void testExecutor() {
+		JShell shell = new JShell();
+		Executor executor = new Executor();
+		executor.runCommand(new String[]{"mkdir", "a", "a/b"}, shell);
+
+		assertEquals("", executor.runCommand(new String[]{"ls", ">", "out", "a"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"echo", "more", ">>", "out"}, shell));
+		assertEquals("b\nmore", executor.runCommand(new String[]{"cat", "out"}, shell));
+	}
+
+	/**
+	 * Test that output is written to the file as it is, even when it
+	 * contains ">", which echo would have refused
+	 */
+	@Test
+	public void testWriteDirectly() {
+		JShell shell = new JShell();
+		Executor executor = new Executor();
+		executor.runCommand(new String[]{"mkdir", "a>b"}, shell);
+		executor.runCommand(new String[]{"cd", "a>b"}, shell);
+
+		assertEquals("", executor.runCommand(new String[]{"pwd", ">", "/out"}, shell));
+		assertEquals("/a>b", shell.getWorkDir().getRoot().getFile("out").toString());
+		assertEquals("", executor.runCommand(new String[]{"pwd", ">>", "/out"}, shell));
+		assertEquals("/a>b\n/a>b", shell.getWorkDir().getRoot().getFile("out").toString());
+	}
+
+	/**
+	 * Test redirecting to a directory, and to a file that already exists
+	 */
+	@Test
+	public void testWriteErrors() {
+		JShell shell = new JShell();
+		Executor executor = new Executor();
+		executor.runCommand(new String[]{"mkdir", "a"}, shell);
+		executor.runCommand(new String[]{"echo", "text", ">", "file"}, shell);
+
+		assertEquals("Error: a - No such file or directory exists",
+				executor.runCommand(new String[]{"pwd", ">", "a"}, shell));
+		assertEquals("Error: A file with name file already exists",
+				executor.runCommand(new String[]{"pwd", ">", "file"}, shell));
+		assertEquals("text", executor.runCommand(new String[]{"cat", "file"}, shell));
+	}
+
+	/**
+	 * Test that a command never reads its own output: appending a file
+	 * to itself, and searching a tree the output is written into
+	 */
+	@Test
+	public void testReadOwnOutput() {
+		JShell shell = new JShell();
+		Executor executor = new Executor();
+		executor.runCommand(new String[]{"echo", "a", "b", ">", "g"}, shell);
+		executor.runCommand(new String[]{"echo", "hello", ">", "f"}, shell);
+		executor.runCommand(new String[]{"mkdir", "d"}, shell);
+
+		assertEquals("", executor.runCommand(new String[]{"cat", "g", "g", ">>", "g"}, shell));
+		assertEquals("a b\na b\na b", executor.runCommand(new String[]{"cat", "g"}, shell));
+
+		assertEquals("", executor.runCommand(new String[]{"grep", "-R", "hello", "/", ">", "z"}, shell));
+		assertEquals("/f: hello", executor.runCommand(new String[]{"cat", "z"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"grep", "-R", "-P2", "hello", "/", ">>", "z"}, shell));
+		assertEquals("/f: hello\n/f: hello\n/z: /f: hello", executor.runCommand(new String[]{"cat", "z"}, shell));
+
+		assertEquals("", executor.runCommand(new String[]{"ls", "-R", "/", ">", "d/out"}, shell));
+		assertTrue(executor.runCommand(new String[]{"cat", "d/out"}, shell).endsWith("/d:"));
+	}
+
+	/**
+	 * Test redirecting the status of the index, while errors still
+	 * reach the user
+	 */
+	@Test
+	public void testIndex() {
+		JShell shell = new JShell();
+		Executor executor = new Executor();
+		executor.runCommand(new String[]{"echo", "text", ">", "file"}, shell);
+
+		assertEquals("", executor.runCommand(new String[]{"index", "on", ">", "on"}, shell));
+		assertEquals("Index on: 1 files, 2 trigrams", executor.runCommand(new String[]{"cat", "on"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"index", "-n", ">", "f"}, shell));
+		assertEquals("Name index off", executor.runCommand(new String[]{"cat", "f"}, shell));
+		assertEquals("", executor.runCommand(new String[]{"index", "status", ">>", "f"}, shell));
+		assertTrue(executor.runCommand(new String[]{"cat", "f"}, shell).startsWith("Name index off\nIndex on: 3 files"));
+		assertEquals(Command.invalidArgsMessage,
+				executor.runCommand(new String[]{"index", "up", ">", "g"}, shell));
+		assertFalse(shell.getWorkDir().hasFile("g"));
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testRedirect.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}
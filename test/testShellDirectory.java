@@ -2,6 +2,11 @@ package test;
 
 import src.filesys.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import org.junit.*;
 import static org.junit.Assert.*;
 import org.junit.runner.JUnitCore;
@@ -225,6 +230,59 @@ public class testShellDirectory {
 
 	}
 	
+	/**
+	 * Test that the root of a directory follows the directories above it
+	 * as they are moved between trees and removed
+	 */
+	@Test
+	public void testRootAfterMove() throws Exception {
+		ShellDirectory other = new ShellDirectory("/");
+		dir.addDirectory(subDir1);
+		subDir1.addDirectory(subDir3);
+		assertSame("getRoot does not retrieve root", dir, subDir3.getRoot());
+		
+		dir.moveFile("SubDir1", other);
+		assertSame("getRoot does not follow a move", other, subDir3.getRoot());
+		assertSame("getRoot does not follow a move", other, subDir1.getRoot());
+		
+		other.removeDirectory("SubDir1");
+		assertSame("getRoot does not follow a removal", subDir1, subDir3.getRoot());
+		assertSame("Root of a tree should be itself", subDir1, subDir1.getRoot());
+	}
+	
+	/**
+	 * Test saving and loading a tree deeper than the call stack, from a
+	 * directory at the bottom of it as the shell saves its working
+	 * directory
+	 */
+	@Test
+	public void testSerializeDeepTree() throws Exception {
+		
+		// Setup
+		ShellDirectory root = new ShellDirectory("/");
+		root.addDirectory(DeepTree.build(DeepTree.DEPTH));
+		subDir1.addDirectory(subDir3);
+		root.addDirectory(subDir1);
+		ShellDirectory bottom = (ShellDirectory) DeepTree.bottomOf(root).getParent();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(bottom);
+		out.close();
+		
+		// Test
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		ShellDirectory loaded = (ShellDirectory) in.readObject();
+		in.close();
+		ShellDirectory loadedRoot = (ShellDirectory) loaded.getRoot();
+		assertEquals("Loaded tree has the wrong root", "/", loadedRoot.getName());
+		assertEquals("Loaded tree has the wrong files", 2, loadedRoot.length());
+		assertSame("Loaded directory is not in the loaded tree", loaded, DeepTree.bottomOf(loadedRoot).getParent());
+		assertEquals("Loaded file has the wrong contents", "found at the bottom", loaded.getFile("bottom").toString());
+		assertEquals("Loaded directory has the wrong path", 2 * DeepTree.DEPTH, loaded.getPath().length());
+		assertEquals("Loaded subdirectory has the wrong parent", "SubDir1",
+				((ShellDirectory) loadedRoot.getFile("SubDir1")).getFile("SubDir3").getParent().getName());
+	}
+	
 	public static void main(String[] args) {
 		Result result = JUnitCore.runClasses(testShellDirectory.class);
 		for (Failure failure : result.getFailures()) {
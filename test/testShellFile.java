@@ -97,6 +97,34 @@ public class testShellFile {
 	}
 	
 	
+	@Test
+	public void testPath() throws Exception {
+		
+		// Setup 1
+		ShellDirectory root = new ShellDirectory();
+		ShellDirectory dir1 = new ShellDirectory("Dir1");
+		root.addDirectory(dir1);
+		dir1.addFile(file1);
+		
+		// Test 1
+		assertEquals("Path of file is not correct", "/Dir1/New_File", file1.getPath());
+		
+		// Setup 2: rename the parent after the path was cached
+		root.removeDirectory("Dir1");
+		dir1.setName("Dir2");
+		root.addDirectory(dir1);
+		
+		// Test 2
+		assertEquals("Path of file should follow renamed parent", "/Dir2/New_File", file1.getPath());
+		
+		// Setup 3: move the file itself
+		dir1.removeFile("New_File");
+		root.addFile(file1);
+		
+		// Test 3
+		assertEquals("Path of file should follow moved file", "/New_File", file1.getPath());
+	}
+	
 	public static void main(String[] args) {
 		Result result = JUnitCore.runClasses(testShellFile.class);
 		for (Failure failure : result.getFailures()) {
@@ -0,0 +1,226 @@
+/**
+ * This JUnit 4 class tests TreeWalker class, and the tree algorithms
+ * built on it, on trees too deep to walk recursively
+ * @version 1.0
+ */
+package test;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.util.concurrent.ForkJoinPool;
+
+import src.filesys.*;
+
+public class testTreeWalker {
+
+	private ShellDirectory root;
+
+	//		 Folder structure used for testing:
+	//		/a/b/file1
+	//		  /c/
+	//		/file2
+
+	@Before
+	public void setUp() throws DirectoryException {
+		root = new ShellDirectory();
+		ShellDirectory a = new ShellDirectory("a");
+		ShellDirectory b = new ShellDirectory("b");
+		ShellDirectory c = new ShellDirectory("c");
+		root.addDirectory(a);
+		root.addFile(new ShellFile("file2"));
+		a.addDirectory(b);
+		a.addDirectory(c);
+		b.addFile(new ShellFile("file1"));
+	}
+
+	/**
+	 * Test that files are walked depth first, in listing order,
+	 * with their paths and depths
+	 */
+	@Test
+	public void testWalk() {
+		TreeWalker walker = new TreeWalker(root);
+		StringBuilder walked = new StringBuilder();
+		for (ShellFile file : walker) {
+			walked.append(walker.getPath()).append(" ").append(walker.getDepth()).append("\n");
+		}
+		assertEquals("/a 1\n/a/b 2\n/a/b/file1 3\n/a/c 2\n/file2 1\n", walked.toString());
+	}
+
+	/**
+	 * Test skipping a directory, and walking another in its place
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testSkipAndWalkInto() throws DirectoryException {
+		ShellDirectory c = (ShellDirectory) DirectoryNavigator.getFile("/a/c", root);
+		ShellDirectory b = (ShellDirectory) DirectoryNavigator.getFile("/a/b", root);
+		TreeWalker walker = new TreeWalker(root, "/start/");
+		StringBuilder walked = new StringBuilder();
+		for (ShellFile file : walker) {
+			walked.append(walker.getPath()).append("\n");
+			if (file == b) {
+				walker.skipChildren();
+			} else if (file == c) {
+				walker.walkInto(b);
+			}
+		}
+		assertEquals("/start/a\n/start/a/b\n/start/a/c\n/start/a/c/file1\n/start/file2\n",
+				walked.toString());
+	}
+
+	/**
+	 * Test visiting directories before and after the files under them,
+	 * and pruning a directory
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testVisitor() throws DirectoryException {
+		PathVisitor visitor = new PathVisitor();
+		new TreeWalker(root).walk(visitor);
+		assertEquals("/a\n/a/b\n/a/b/file1\n</a/b\n/a/c\n</a/c\n</a\n/file2\n", visitor.visited.toString());
+
+		visitor = new PathVisitor();
+		visitor.prune = DirectoryNavigator.getFile("/a/b", root);
+		new TreeWalker(root).walk(visitor);
+		assertEquals("/a\n/a/b\n/a/c\n</a/c\n</a\n/file2\n", visitor.visited.toString());
+	}
+
+	/**
+	 * Test walking every file at one depth before those deeper
+	 */
+	@Test
+	public void testBreadthFirst() {
+		TreeWalker walker = new TreeWalker(root);
+		walker.setBreadthFirst(true);
+		StringBuilder walked = new StringBuilder();
+		for (ShellFile file : walker) {
+			walked.append(walker.getPath()).append(" ").append(walker.getDepth()).append("\n");
+		}
+		assertEquals("/a 1\n/file2 1\n/a/b 2\n/a/c 2\n/a/b/file1 3\n", walked.toString());
+	}
+
+	/**
+	 * Test that a parallel walk visits the same files in the same
+	 * order as a sequential one, including a deep tree
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testParallel() throws DirectoryException {
+		root.addDirectory(DeepTree.build(DeepTree.DEPTH));
+		for (int i = 0; i < 20; i++) {
+			ShellDirectory wide = new ShellDirectory("wide" + i);
+			wide.addFile(new ShellFile("file" + i));
+			((Directory) root.getFile("a")).addDirectory(wide);
+		}
+
+		PathVisitor sequential = new PathVisitor();
+		new TreeWalker(root).walk(sequential);
+		PathVisitor parallel = new PathVisitor();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		new TreeWalker(root).walk(parallel, pool);
+		pool.shutdown();
+
+		assertEquals(sequential.visited.toString(), parallel.visited.toString());
+	}
+
+	/**
+	 * Test that a visitor which cannot be split is walked sequentially
+	 * when walked with a pool
+	 */
+	@Test
+	public void testParallelWithoutSplit() {
+		final StringBuilder visited = new StringBuilder();
+		TreeVisitor visitor = new TreeVisitor() {
+			public boolean preVisit(ShellFile file, TreeWalker walker) {
+				visited.append(walker.getPath()).append("\n");
+				return true;
+			}
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		new TreeWalker(root).walk(visitor, pool);
+		pool.shutdown();
+
+		assertEquals("/a\n/a/b\n/a/b/file1\n/a/c\n/file2\n", visited.toString());
+	}
+
+	/**
+	 * Test walking a tree deeper than the call stack allows
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testDeepWalk() throws DirectoryException {
+		root.addDirectory(DeepTree.build(DeepTree.DEPTH));
+
+		int count = 0;
+		int deepest = 0;
+		TreeWalker walker = new TreeWalker(root);
+		for (ShellFile file : walker) {
+			count++;
+			deepest = Math.max(deepest, walker.getDepth());
+		}
+		assertEquals(5 + DeepTree.DEPTH + 1, count);
+		assertEquals(DeepTree.DEPTH + 1, deepest);
+	}
+
+	/**
+	 * Test getRoot and getPath at the bottom of a very deep tree
+	 * @throws DirectoryException
+	 */
+	@Test
+	public void testDeepPath() throws DirectoryException {
+		root.addDirectory(DeepTree.build(DeepTree.DEPTH));
+		ShellFile bottom = DeepTree.bottomOf(root);
+
+		assertSame(root, bottom.getParent().getRoot());
+		String path = bottom.getPath();
+		assertEquals(2 * DeepTree.DEPTH + "/bottom".length(), path.length());
+		assertTrue(path.endsWith("/d/d/bottom"));
+		assertSame(bottom, DirectoryNavigator.getFile(path, root));
+	}
+
+	/**
+	 * Records the paths of the files visited, with directories visited
+	 * again marked by "<". Only files less than 10 directories deep
+	 * are recorded, so that deep trees can be visited.
+	 */
+	static class PathVisitor extends TreeVisitor {
+
+		StringBuilder visited = new StringBuilder();
+		ShellFile prune;
+
+		public boolean preVisit(ShellFile file, TreeWalker walker) {
+			if (walker.getDepth() < 10) {
+				visited.append(walker.getPath()).append("\n");
+			}
+			return (file != prune);
+		}
+
+		public void postVisit(ShellFile entry, TreeWalker walker) {
+			if (walker.getDepth() < 10) {
+				visited.append("<").append(walker.getPath()).append("\n");
+			}
+		}
+
+		public TreeVisitor split() {
+			return new PathVisitor();
+		}
+
+		public void merge(TreeVisitor part) {
+			visited.append(((PathVisitor) part).visited);
+		}
+
+	}
+
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(testTreeWalker.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+	}
+
+}